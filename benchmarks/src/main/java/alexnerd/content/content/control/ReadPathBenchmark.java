@@ -0,0 +1,162 @@
+/*
+ * Copyright 2023 Aleksey Popov <alexnerd.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package alexnerd.content.content.control;
+
+import alexnerd.content.content.control.adapters.ContentDeserializer;
+import alexnerd.content.content.control.enums.Lang;
+import alexnerd.content.content.entity.Content;
+import alexnerd.content.content.entity.enums.ContentType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Every step of {@code /post} and {@code /last} plus the full {@link ContentStore} path, against a
+ * generated storage tree. Requests rotate over all generated posts. The {@code cached} store
+ * keeps the default cache budget, the {@code uncached} one goes to disk on every read, both read the
+ * same tree. The default grid writes at most a few hundred MB, pass larger {@code -p} values explicitly.
+ * Run with {@code -prof gc} to get allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReadPathBenchmark {
+
+    @Param({"1000"})
+    int posts;
+
+    @Param({"365"})
+    int daySpread;
+
+    @Param({"2048", "65536"})
+    int bodySize;
+
+    private StorageFixture.Tree tree;
+
+    private StorageFixture cached;
+
+    private StorageFixture uncached;
+
+    private String stringified;
+
+    private int next;
+
+    @Setup
+    public void init() throws FileNotFoundException {
+        this.tree = StorageFixture.generate(posts, daySpread, bodySize);
+        this.cached = new StorageFixture(tree, 64L * 1024 * 1024);
+        this.uncached = new StorageFixture(tree, 0);
+        ContentKey first = cached.keys.get(0);
+        this.stringified = cached.storage.readContent(
+                cached.storage.constructContentPath(Lang.RU, ContentType.POST, first.date(), first.fileName()));
+    }
+
+    @TearDown
+    public void close() throws IOException {
+        this.cached.close();
+        this.uncached.close();
+        this.tree.close();
+    }
+
+    @Benchmark
+    public String normalize() {
+        return cached.normalizer.normalize(cached.title(nextKey()));
+    }
+
+    @Benchmark
+    public Content deserialize() {
+        return ContentDeserializer.deserialize(stringified, ContentType.POST);
+    }
+
+    @Benchmark
+    public Content deserializeLastArticles() {
+        return ContentDeserializer.deserialize(stringified, ContentType.LAST_ARTICLES);
+    }
+
+    @Benchmark
+    public String storageReadContent() throws FileNotFoundException {
+        ContentKey key = nextKey();
+        Path contentPath = uncached.storage.constructContentPath(key.lang(), key.type(), key.date(), key.fileName());
+        uncached.storage.getAttributes(contentPath);
+        return uncached.storage.readContent(contentPath);
+    }
+
+    @Benchmark
+    public List<String> storageReadLast() {
+        return uncached.storage.getLastEntries(Lang.RU, ContentType.POST, 10).stream()
+                .map(ContentEntry::path)
+                .map(uncached.storage::readContent)
+                .toList();
+    }
+
+    @Benchmark
+    public byte[] storeReadJsonCached() {
+        ContentKey key = nextKey();
+        return cached.store.readJson(key.lang(), key.type(), key.date(), cached.title(key));
+    }
+
+    @Benchmark
+    public byte[] storeReadJsonUncached() {
+        ContentKey key = nextKey();
+        return uncached.store.readJson(key.lang(), key.type(), key.date(), uncached.title(key));
+    }
+
+    @Benchmark
+    public List<byte[]> storeReadLast() {
+        return cached.store.readJson(Lang.RU, ContentType.POST, cached.store.lastEntries(Lang.RU, ContentType.POST, 10));
+    }
+
+    @Benchmark
+    public List<byte[]> storeReadLastArticles() {
+        return cached.store.readJson(Lang.RU, ContentType.LAST_ARTICLES,
+                cached.store.lastEntries(Lang.RU, ContentType.LAST_ARTICLES, 10));
+    }
+
+    @Benchmark
+    public boolean storeResolveMissing() {
+        ContentKey key = nextKey();
+        try {
+            cached.store.resolve(key.lang(), key.type(), key.date(), cached.title(key) + " missing");
+            return true;
+        } catch (ContentNotFoundException ex) {
+            return false;
+        }
+    }
+
+    private ContentKey nextKey() {
+        next = (next + 1) % posts;
+        return cached.keys.get(next);
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2023 Aleksey Popov <alexnerd.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package alexnerd.content.content.control;
+
+import alexnerd.content.content.control.adapters.JsonMapper;
+import alexnerd.content.content.control.enums.Lang;
+import alexnerd.content.content.entity.Content;
+import alexnerd.content.content.entity.enums.ContentType;
+import alexnerd.content.metrics.ContentMetrics;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static alexnerd.content.content.control.ContentStoreTest.inject;
+import static alexnerd.content.content.control.ContentStoreTest.noop;
+
+/**
+ * The read path wired by hand over a {@link Tree}, the way the container would inject it, with the
+ * injection helpers of {@link ContentStoreTest}. Several fixtures may share one tree, closing a fixture
+ * leaves the tree in place.
+ */
+public class StorageFixture implements AutoCloseable {
+
+    private static final LocalDate LAST_DAY = LocalDate.of(2023, 12, 31);
+
+    final Path root;
+    final List<ContentKey> keys;
+    final TitleNormalizer normalizer;
+    final ContentIndex index;
+    final Storage storage;
+    final ContentStore store;
+
+    private final ParallelReader reader;
+
+    public StorageFixture(Tree tree, long cacheBytes) {
+        this.root = tree.root();
+        this.keys = tree.keys();
+        this.normalizer = new TitleNormalizer();
+        this.normalizer.titleSeparator = "-";
+        this.normalizer.memoSize = 1024;
+        this.normalizer.init();
+
+        this.index = new ContentIndex();
+        this.index.baseDir = root.toString();
+        this.index.backend = new FileTreeBackend();
+        this.index.init();
+
+        this.storage = new Storage();
+        inject(storage, "baseDir", root.toString());
+        inject(storage, "index", index);
+        inject(storage, "backend", index.backend);
+        this.storage.init();
+
+        HotSet hotSet = new HotSet();
+        hotSet.baseDir = root.toString();
+        hotSet.size = 100;
+        hotSet.file = Optional.empty();
+        hotSet.init();
+
+        ContentMetrics contentMetrics = new ContentMetrics();
+        inject(contentMetrics, "storage", storage);
+        inject(contentMetrics, "registry", noop(MetricRegistry.class));
+        inject(contentMetrics, "hotSet", hotSet);
+        inject(contentMetrics, "topHits", 10);
+        inject(contentMetrics, "stagePercentiles", List.of(0.5, 0.9, 0.99));
+
+        ContentCache cache = new ContentCache();
+        cache.maxBytes = cacheBytes;
+        inject(cache, "contentMetrics", contentMetrics);
+
+        this.reader = new ParallelReader();
+        this.reader.parallelism = 32;
+        this.reader.init();
+
+        MissingContentCache missingContent = new MissingContentCache();
+        missingContent.maxEntries = 10000;
+        missingContent.ttlInSeconds = 60;
+        inject(missingContent, "contentMetrics", contentMetrics);
+
+        this.store = new ContentStore();
+        inject(store, "normalizer", normalizer);
+        inject(store, "contentMetrics", contentMetrics);
+        inject(store, "storage", storage);
+        inject(store, "cache", cache);
+        inject(store, "reader", reader);
+        inject(store, "missingContent", missingContent);
+        inject(store, "teasers", new TeaserIndex());
+        this.store.streamingThreshold = 131072;
+    }
+
+    String title(ContentKey key) {
+        return key.fileName().replace('-', ' ');
+    }
+
+    /**
+     * Synthetic {@code lang/baseDir/yyyy/m/d} tree, posts and articles are spread evenly over {@code daySpread}
+     * days ending at 2023-12-31.
+     */
+    public static Tree generate(int posts, int daySpread, int bodySize) {
+        try {
+            Path root = Files.createTempDirectory("blog-content");
+            List<ContentKey> keys = new ArrayList<>();
+            String body = "Б".repeat(bodySize / 2);
+            for (int i = 0; i < posts; i++) {
+                LocalDate day = LAST_DAY.minusDays(i % daySpread);
+                String date = day.getYear() + "-" + day.getMonthValue() + "-" + day.getDayOfMonth();
+                String fileName = "post-" + i;
+                for (ContentType type : List.of(ContentType.POST, ContentType.ARTICLE)) {
+                    Content content = new Content("post " + i, type, body, "java", date, fileName);
+                    Path directory = root.resolve(Lang.RU.name())
+                            .resolve(type.getBaseDir())
+                            .resolve(String.valueOf(day.getYear()))
+                            .resolve(String.valueOf(day.getMonthValue()))
+                            .resolve(String.valueOf(day.getDayOfMonth()));
+                    Files.createDirectories(directory);
+                    Files.writeString(directory.resolve(fileName + ".json"), JsonMapper.save(content));
+                }
+                keys.add(new ContentKey(Lang.RU, ContentType.POST, date, fileName));
+            }
+            return new Tree(root, List.copyOf(keys));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public void close() {
+        this.reader.close();
+    }
+
+    public record Tree(Path root, List<ContentKey> keys) implements AutoCloseable {
+
+        @Override
+        public void close() throws IOException {
+            try (Stream<Path> paths = Files.walk(root)) {
+                for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(path);
+                }
+            }
+        }
+    }
+}
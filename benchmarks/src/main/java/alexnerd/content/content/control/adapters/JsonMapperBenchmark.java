@@ -0,0 +1,86 @@
+/*
+ * Copyright 2023 Aleksey Popov <alexnerd.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package alexnerd.content.content.control.adapters;
+
+import alexnerd.content.content.entity.Content;
+import alexnerd.content.content.entity.enums.ContentType;
+import jakarta.json.bind.Jsonb;
+import jakarta.json.bind.JsonbBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-call cost of {@link JsonMapper} with a shared {@link Jsonb} against building one per call,
+ * which is what {@link JsonMapper} did before.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonMapperBenchmark {
+
+    @Param({"1024", "65536"})
+    int bodySize;
+
+    private Content content;
+
+    private String stringified;
+
+    @Setup
+    public void init() {
+        this.content = new Content("Benchmark", ContentType.POST, "x".repeat(bodySize), "java",
+                "2023-1-1", "benchmark");
+        this.stringified = JsonMapper.save(content);
+    }
+
+    @Benchmark
+    public Content loadShared() {
+        return JsonMapper.load(stringified);
+    }
+
+    @Benchmark
+    public Content loadPerCall() throws Exception {
+        try (Jsonb jsonb = JsonbBuilder.create(JsonMapper.config)) {
+            return jsonb.fromJson(stringified, Content.class);
+        }
+    }
+
+    @Benchmark
+    public String saveShared() {
+        return JsonMapper.save(content);
+    }
+
+    @Benchmark
+    public String savePerCall() throws Exception {
+        try (Jsonb jsonb = JsonbBuilder.create(JsonMapper.config)) {
+            return jsonb.toJson(content);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2023 Aleksey Popov <alexnerd.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package alexnerd.content.checks;
+
+import alexnerd.content.content.control.ContentStore;
+import alexnerd.content.content.control.Storage;
+import alexnerd.content.content.control.enums.Lang;
+import alexnerd.content.content.entity.enums.ContentType;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ManagedScheduledExecutorService;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Samples the conditions the health checks report on every {@code health.sample.interval} seconds in the
+ * background and keeps the last result, so probes answer without touching the disk. A sample older than
+ * {@code health.sample.staleness} seconds means sampling is stuck and is reported as unhealthy.
+ */
+@ApplicationScoped
+public class HealthSampler {
+
+    private static final Logger LOG = Logger.getLogger(HealthSampler.class.getName());
+
+    private final static String INITIAL_TITLE = "JavaNerd blog";
+    private final static String INITIAL_DATE = "2016-1-1";
+
+    @Inject
+    private Storage storage;
+
+    @Inject
+    private ContentStore store;
+
+    @Resource
+    private ManagedScheduledExecutorService scheduler;
+
+    @Inject
+    @ConfigProperty(name = "health.sample.interval", defaultValue = "10")
+    private long intervalInSeconds;
+
+    @Inject
+    @ConfigProperty(name = "health.sample.staleness", defaultValue = "60")
+    private long stalenessInSeconds;
+
+    private volatile HealthSnapshot snapshot;
+
+    void onStart(@Observes @Initialized(ApplicationScoped.class) Object ignored) {
+        this.sample();
+        this.scheduler.scheduleWithFixedDelay(this::sample, this.intervalInSeconds, this.intervalInSeconds,
+                TimeUnit.SECONDS);
+    }
+
+    /**
+     * Last sample, or {@code null} before the first one.
+     */
+    public HealthSnapshot getSnapshot() {
+        return this.snapshot;
+    }
+
+    public boolean isFresh(HealthSnapshot sample) {
+        return sample != null
+                && Duration.between(sample.sampledAt(), Instant.now()).getSeconds() < this.stalenessInSeconds;
+    }
+
+    void sample() {
+        try {
+            Path root = this.storage.getStorageDirectoryPath();
+            boolean directoryExists = Files.isDirectory(root);
+            this.snapshot = new HealthSnapshot(directoryExists, usableSpaceInMB(root, directoryExists),
+                    this.initialPostExists(), Instant.now());
+        } catch (RuntimeException ex) {
+            // keeps the previous snapshot, it turns stale if sampling keeps failing
+            LOG.log(Level.WARNING, "Can't sample health", ex);
+        }
+    }
+
+    private boolean initialPostExists() {
+        try {
+            return this.store.peek(Lang.RU, ContentType.POST, INITIAL_DATE, INITIAL_TITLE)
+                    .map(content -> content.title().equalsIgnoreCase(INITIAL_TITLE))
+                    .orElse(false);
+        } catch (RuntimeException ex) {
+            return false;
+        }
+    }
+
+    private static long usableSpaceInMB(Path root, boolean directoryExists) {
+        if (!directoryExists) {
+            return 0;
+        }
+        try {
+            return Files.getFileStore(root).getUsableSpace() / 1024 / 1024;
+        } catch (IOException ex) {
+            return 0;
+        }
+    }
+}
@@ -16,12 +16,6 @@
 
 package alexnerd.content.checks;
 
-import alexnerd.content.content.control.ContentStore;
-import alexnerd.content.content.control.enums.Lang;
-import alexnerd.content.content.control.Storage;
-import alexnerd.content.content.entity.Content;
-import alexnerd.content.content.entity.enums.ContentType;
-import alexnerd.content.metrics.ContentMetrics;
 import jakarta.enterprise.inject.Produces;
 import jakarta.inject.Inject;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
@@ -29,21 +23,15 @@ import org.eclipse.microprofile.health.HealthCheck;
 import org.eclipse.microprofile.health.HealthCheckResponse;
 import org.eclipse.microprofile.health.Liveness;
 
-import java.nio.file.Files;
+import java.util.function.Predicate;
 
+/**
+ * Liveness checks answered from the last {@link HealthSampler} snapshot, probes never touch the disk.
+ */
 public class LivenessCheck {
 
     @Inject
-    private Storage storage;
-
-    @Inject
-    private ContentMetrics contentMetrics;
-
-    @Inject
-    private ContentStore store;
-
-    private final static String INITIAL_TITLE = "JavaNerd blog";
-    private final static String INITIAL_DATE = "2016-1-1";
+    private HealthSampler sampler;
 
     @Inject
     @ConfigProperty(name = "minimum.storage.space", defaultValue = "50")
@@ -52,37 +40,28 @@ public class LivenessCheck {
     @Produces
     @Liveness
     public HealthCheck checkContentDirectoryExists() {
-        return () -> HealthCheckResponse
-                .named("content-directory-exists")
-                .status(Files.exists(storage.getStorageDirectoryPath()))
-                .build();
+        return () -> this.fromSnapshot("content-directory-exists", HealthSnapshot::directoryExists);
     }
 
     @Produces
     @Liveness
     public HealthCheck checkEnoughSpace() {
-        long size = contentMetrics.getContentStorageSpaceInMB();
-        boolean enoughSpace = size >= storageThreshold;
-        return () -> HealthCheckResponse
-                .named("content-directory-has-space")
-                .status(enoughSpace)
-                .build();
+        return () -> this.fromSnapshot("content-directory-has-space",
+                snapshot -> snapshot.usableSpaceInMB() >= storageThreshold);
     }
 
     @Produces
     @Liveness
     public HealthCheck initialExists() {
-        return () -> HealthCheckResponse.named("initial-post-exists")
-                .status(this.postExist())
-                .build();
+        return () -> this.fromSnapshot("initial-post-exists", HealthSnapshot::initialPostExists);
     }
 
-    private boolean postExist() {
-        try {
-            Content content = store.read(Lang.RU, ContentType.POST, INITIAL_DATE, INITIAL_TITLE);
-            return content.title().equalsIgnoreCase(INITIAL_TITLE);
-        } catch (Exception ex) {
-            return false;
-        }
+    private HealthCheckResponse fromSnapshot(String name, Predicate<HealthSnapshot> condition) {
+        HealthSnapshot snapshot = sampler.getSnapshot();
+        boolean fresh = sampler.isFresh(snapshot);
+        return HealthCheckResponse.named(name)
+                .status(fresh && condition.test(snapshot))
+                .withData("fresh", fresh)
+                .build();
     }
 }
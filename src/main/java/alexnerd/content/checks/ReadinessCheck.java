@@ -16,14 +16,26 @@
 
 package alexnerd.content.checks;
 
+import alexnerd.content.content.control.ContentIndex;
+import alexnerd.content.content.control.WarmUp;
+import jakarta.inject.Inject;
 import org.eclipse.microprofile.health.HealthCheck;
 import org.eclipse.microprofile.health.HealthCheckResponse;
 import org.eclipse.microprofile.health.Readiness;
 
 @Readiness
 public class ReadinessCheck implements HealthCheck {
+
+    @Inject
+    private ContentIndex index;
+
+    @Inject
+    private WarmUp warmUp;
+
     @Override
     public HealthCheckResponse call() {
-        return HealthCheckResponse.up("content-api");
+        return HealthCheckResponse.named("content-api")
+                .status(index.isReady() && warmUp.isDone())
+                .build();
     }
 }
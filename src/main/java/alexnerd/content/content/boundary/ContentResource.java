@@ -17,41 +17,237 @@
 package alexnerd.content.content.boundary;
 
 import alexnerd.content.content.control.enums.Lang;
+import alexnerd.content.content.control.ContentEntry;
+import alexnerd.content.content.control.ContentFile;
+import alexnerd.content.content.control.ContentPage;
 import alexnerd.content.content.control.ContentStore;
+import alexnerd.content.content.control.ContentVersion;
+import alexnerd.content.content.control.Encoding;
+import alexnerd.content.content.control.SearchIndex;
+import alexnerd.content.content.control.adapters.JsonPages;
+import alexnerd.content.content.entity.ContentReference;
 import alexnerd.content.content.entity.enums.ContentType;
-import alexnerd.content.content.entity.Content;
 import jakarta.inject.Inject;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.container.Suspended;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
-import org.eclipse.microprofile.metrics.annotation.Timed;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
 
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
 import java.util.List;
+import java.util.function.Supplier;
 
 @Path("/")
 public class ContentResource {
 
+    /**
+     * Timed by the {@link RequestExecutor} under the names the endpoints always had.
+     */
+    private static final String POST_TIMER = ContentResource.class.getName() + ".findPost";
+
+    private static final String LAST_TIMER = ContentResource.class.getName() + ".findLast";
+
     @Inject
     private ContentStore store;
 
-    @Timed
+    @Inject
+    private RequestExecutor executor;
+
+    @Inject
+    private SearchIndex searchIndex;
+
     @GET
     @Path("post/{date}/{title}")
     @Produces(MediaType.APPLICATION_JSON)
-    public Content findPost(@DefaultValue("ru") @QueryParam("lang") Lang lang,
-                            @DefaultValue("POST") @QueryParam("type") ContentType type,
-                            @PathParam("date") String date,
-                            @PathParam("title") String title) {
-        return store.read(lang, type, date, title);
+    public void findPost(@DefaultValue("ru") @QueryParam("lang") Lang lang,
+                         @DefaultValue("POST") @QueryParam("type") ContentType type,
+                         @PathParam("date") String date,
+                         @PathParam("title") String title,
+                         @HeaderParam(HttpHeaders.ACCEPT_ENCODING) String acceptEncoding,
+                         @Context Request request,
+                         @Suspended AsyncResponse response) {
+        executor.execute(POST_TIMER, response, () -> {
+            ContentFile file = store.resolve(lang, type, date, title);
+            Encoding encoding = negotiate(acceptEncoding);
+            return respond(request, file.version(), encoding, () -> store.readPayload(file, encoding).entity());
+        });
     }
 
     @GET
     @Path("last")
     @Produces(MediaType.APPLICATION_JSON)
-    public List<Content> findLast(@DefaultValue("ru") @QueryParam("lang") Lang lang,
-                                  @DefaultValue("POST") @QueryParam("type") ContentType type,
-                                  @QueryParam("limit") @Min(1) @Max(10) int limit) {
-        return store.readLast(lang, type, limit);
+    public void findLast(@DefaultValue("ru") @QueryParam("lang") Lang lang,
+                         @DefaultValue("POST") @QueryParam("type") ContentType type,
+                         @QueryParam("limit") @Min(1) @Max(10) int limit,
+                         @HeaderParam(HttpHeaders.ACCEPT_ENCODING) String acceptEncoding,
+                         @Context Request request,
+                         @Suspended AsyncResponse response) {
+        executor.execute(LAST_TIMER, response, () -> {
+            List<ContentEntry> entries = store.lastEntries(lang, type, limit);
+            ContentVersion version = ContentVersion.of(entries);
+            Encoding encoding = negotiate(acceptEncoding);
+            return respond(request, version, encoding,
+                    () -> store.readLastJson(lang, type, entries, version, encoding));
+        });
+    }
+
+    /**
+     * Walks the whole listing page by page, {@code next} of a response is the {@code cursor} of the following request.
+     */
+    @GET
+    @Path("list")
+    @Produces(MediaType.APPLICATION_JSON)
+    public void findPage(@DefaultValue("ru") @QueryParam("lang") Lang lang,
+                         @DefaultValue("POST") @QueryParam("type") ContentType type,
+                         @QueryParam("cursor") String cursor,
+                         @DefaultValue("10") @QueryParam("size") @Min(1) @Max(50) int size,
+                         @Suspended AsyncResponse response) {
+        executor.execute(response, () -> this.respond(lang, type, store.page(lang, type, cursor, size)));
+    }
+
+    @GET
+    @Path("rubric/{rubric}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public void findByRubric(@DefaultValue("ru") @QueryParam("lang") Lang lang,
+                             @DefaultValue("POST") @QueryParam("type") ContentType type,
+                             @PathParam("rubric") String rubric,
+                             @QueryParam("cursor") String cursor,
+                             @DefaultValue("10") @QueryParam("size") @Min(1) @Max(50) int size,
+                             @Suspended AsyncResponse response) {
+        executor.execute(response, () -> this.respond(lang, type, store.pageByRubric(lang, type, rubric, cursor, size)));
+    }
+
+    /**
+     * Content dated from {@code from} to {@code to} inclusive, both {@code yyyy-M-d}, newest first.
+     */
+    @GET
+    @Path("range")
+    @Produces(MediaType.APPLICATION_JSON)
+    public void findByDate(@DefaultValue("ru") @QueryParam("lang") Lang lang,
+                           @DefaultValue("POST") @QueryParam("type") ContentType type,
+                           @NotNull @QueryParam("from") String from,
+                           @NotNull @QueryParam("to") String to,
+                           @QueryParam("cursor") String cursor,
+                           @DefaultValue("10") @QueryParam("size") @Min(1) @Max(50) int size,
+                           @Suspended AsyncResponse response) {
+        executor.execute(response, () -> this.respond(lang, type, store.pageByDate(lang, type, from, to, cursor, size)));
+    }
+
+    /**
+     * Full text search, best matches first. {@code type} selects the content directory searched.
+     */
+    @GET
+    @Path("search")
+    @Produces(MediaType.APPLICATION_JSON)
+    public void search(@DefaultValue("ru") @QueryParam("lang") Lang lang,
+                       @DefaultValue("POST") @QueryParam("type") ContentType type,
+                       @NotNull @QueryParam("q") String query,
+                       @DefaultValue("0") @QueryParam("page") @Min(0) @Max(100) int page,
+                       @DefaultValue("10") @QueryParam("size") @Min(1) @Max(50) int size,
+                       @Suspended AsyncResponse response) {
+        executor.execute(response, () -> Response.ok(searchIndex.search(lang, type, query, page * size, size)).build());
+    }
+
+    /**
+     * Fetches several pieces of content at once, each item of the returned array carries its own status.
+     */
+    @POST
+    @Path("batch")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public void findBatch(@DefaultValue("ru") @QueryParam("lang") Lang lang,
+                          @DefaultValue("POST") @QueryParam("type") ContentType type,
+                          @NotNull @Size(min = 1, max = 50) List<ContentReference> references,
+                          @Suspended AsyncResponse response) {
+        executor.execute(response, () -> {
+            List<byte[]> items = store.readBatch(lang, type, references);
+            StreamingOutput array = output -> {
+                output.write('[');
+                for (int i = 0; i < items.size(); i++) {
+                    if (i > 0) {
+                        output.write(',');
+                    }
+                    output.write(items.get(i));
+                }
+                output.write(']');
+            };
+            return Response.ok(array).build();
+        });
+    }
+
+    /**
+     * Answers conditional requests with 304 before the entity is read, otherwise sends it
+     * along with its validators. Every encoding is a distinct representation with its own tag.
+     * Responses without a modification time are validated by their tag only.
+     */
+    static Response respond(Request request, ContentVersion version, Encoding encoding, Supplier<Object> entity) {
+        String representation = encoding == Encoding.IDENTITY ? version.tag() : version.tag() + "-" + encoding.getToken();
+        EntityTag tag = new EntityTag(representation);
+        Date lastModified = version.lastModified() == null ? null
+                : Date.from(version.lastModified().toInstant().truncatedTo(ChronoUnit.SECONDS));
+        Response.ResponseBuilder notModified = lastModified == null
+                ? request.evaluatePreconditions(tag)
+                : request.evaluatePreconditions(lastModified, tag);
+        if (notModified != null) {
+            return notModified.tag(tag).lastModified(lastModified)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+        Response.ResponseBuilder ok = Response.ok(entity.get()).tag(tag).lastModified(lastModified)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (encoding != Encoding.IDENTITY) {
+            ok.header(HttpHeaders.CONTENT_ENCODING, encoding.getToken());
+        }
+        return ok.build();
+    }
+
+    private Response respond(Lang lang, ContentType type, ContentPage page) {
+        List<byte[]> items = store.readJson(lang, type, page.entries());
+        return Response.ok(JsonPages.of(items, page.next())).build();
+    }
+
+    /**
+     * Picks gzip when the client accepts it with a non zero quality, identity otherwise. An explicit
+     * {@code gzip} entry wins over {@code *}, coding and parameter names are case-insensitive.
+     */
+    static Encoding negotiate(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return Encoding.IDENTITY;
+        }
+        Boolean gzip = null;
+        Boolean wildcard = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parameters = coding.split(";");
+            String name = parameters[0].trim();
+            boolean isGzip = name.equalsIgnoreCase(Encoding.GZIP.getToken());
+            if (!isGzip && !name.equals("*")) {
+                continue;
+            }
+            boolean accepted = true;
+            for (int i = 1; i < parameters.length; i++) {
+                String parameter = parameters[i].trim();
+                if (parameter.length() >= 2 && parameter.regionMatches(true, 0, "q=", 0, 2)) {
+                    accepted = !parameter.substring(2).trim().matches("0(\\.0{0,3})?");
+                }
+            }
+            if (isGzip) {
+                gzip = accepted;
+            } else {
+                wildcard = accepted;
+            }
+        }
+        boolean accepted = gzip != null ? gzip : wildcard != null && wildcard;
+        return accepted ? Encoding.GZIP : Encoding.IDENTITY;
     }
 }
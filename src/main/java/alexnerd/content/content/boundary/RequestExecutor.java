@@ -0,0 +1,138 @@
+/*
+ * Copyright 2023 Aleksey Popov <alexnerd.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package alexnerd.content.content.boundary;
+
+import alexnerd.content.metrics.ContentMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs the blocking part of a request. In {@code BLOCKING} mode it runs on the container worker
+ * thread as before. In {@code VIRTUAL} mode the request is suspended and resumed from a virtual
+ * thread, so slow disk I/O parks a virtual thread instead of holding a worker. At most
+ * {@code content.execution.max.concurrency} requests run at once, up to {@code content.execution.max.queued}
+ * wait for a permit, anything beyond is rejected with 503. A named request is timed from the moment it
+ * runs until its response is resumed, the suspended resource method itself returns immediately.
+ */
+@ApplicationScoped
+public class RequestExecutor {
+
+    public enum Mode {
+        BLOCKING, VIRTUAL
+    }
+
+    @Inject
+    @ConfigProperty(name = "content.execution.mode", defaultValue = "BLOCKING")
+    Mode mode;
+
+    @Inject
+    @ConfigProperty(name = "content.execution.max.concurrency", defaultValue = "256")
+    int maxConcurrency;
+
+    @Inject
+    @ConfigProperty(name = "content.execution.max.queued", defaultValue = "4096")
+    int maxQueued;
+
+    @Inject
+    private ContentMetrics contentMetrics;
+
+    private ExecutorService executor;
+
+    private Semaphore permits;
+
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private final AtomicInteger active = new AtomicInteger();
+
+    @PostConstruct
+    public void init() {
+        this.permits = new Semaphore(this.maxConcurrency, true);
+        if (this.mode == Mode.VIRTUAL) {
+            this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        }
+        this.contentMetrics.registerExecutionGauges(this.queued::get, this.active::get);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (this.executor != null) {
+            this.executor.shutdown();
+        }
+    }
+
+    public void execute(AsyncResponse response, Supplier<Response> task) {
+        this.execute(null, response, task);
+    }
+
+    public void execute(String timer, AsyncResponse response, Supplier<Response> task) {
+        if (this.mode == Mode.BLOCKING) {
+            this.run(timer, response, task);
+            return;
+        }
+        if (this.queued.incrementAndGet() > this.maxQueued) {
+            this.queued.decrementAndGet();
+            this.contentMetrics.increaseExecutionRejectedCounter();
+            response.resume(Response.status(Response.Status.SERVICE_UNAVAILABLE).build());
+            return;
+        }
+        long queuedAt = System.nanoTime();
+        this.executor.execute(() -> {
+            try {
+                this.permits.acquire();
+            } catch (InterruptedException ex) {
+                this.queued.decrementAndGet();
+                Thread.currentThread().interrupt();
+                response.resume(ex);
+                return;
+            }
+            this.queued.decrementAndGet();
+            this.contentMetrics.updateExecutionQueueWait(Duration.ofNanos(System.nanoTime() - queuedAt));
+            try {
+                this.run(timer, response, task);
+            } finally {
+                this.permits.release();
+            }
+        });
+    }
+
+    private void run(String timer, AsyncResponse response, Supplier<Response> task) {
+        this.active.incrementAndGet();
+        long start = System.nanoTime();
+        try {
+            response.resume(task.get());
+        } catch (RuntimeException ex) {
+            response.resume(ex);
+        } finally {
+            this.active.decrementAndGet();
+            if (timer != null) {
+                this.contentMetrics.updateRequestTime(timer, Duration.ofNanos(System.nanoTime() - start));
+            }
+        }
+    }
+}
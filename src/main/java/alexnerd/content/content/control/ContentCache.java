@@ -0,0 +1,209 @@
+/*
+ * Copyright 2023 Aleksey Popov <alexnerd.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package alexnerd.content.content.control;
+
+import alexnerd.content.content.control.enums.Lang;
+import alexnerd.content.content.entity.enums.ContentType;
+import alexnerd.content.metrics.ContentMetrics;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * LRU cache of the JSON served for a piece of content, already validated and projected for its
+ * {@link ContentType}, in every {@link Encoding} requested so far.
+ * Entries are weighed by their length and evicted once {@code content.cache.max.bytes} is exceeded.
+ * An entry is only served while the file keeps the modification time it was cached with.
+ * Listings are cached one per request shape under the same budget and LRU order, and are only served while
+ * their version tag matches.
+ * <p>
+ * With {@code content.cache.offheap} the cached JSON is held in direct buffers instead of heap arrays,
+ * under the same {@code content.cache.max.bytes} budget, and single pieces of content are written to
+ * clients straight from them. An evicted buffer is released once no response is writing it anymore.
+ */
+@ApplicationScoped
+public class ContentCache {
+
+    @Inject
+    @ConfigProperty(name = "content.cache.max.bytes", defaultValue = "67108864")
+    long maxBytes;
+
+    @Inject
+    @ConfigProperty(name = "content.cache.offheap", defaultValue = "false")
+    boolean offHeap;
+
+    @Inject
+    private ContentMetrics contentMetrics;
+
+    private final Map<Key, Cached> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final Map<Path, FileTime> validated = new ConcurrentHashMap<>();
+
+    private long usedBytes;
+
+    public Optional<byte[]> get(ContentKey key, FileTime lastModified) {
+        return this.get(key, Encoding.IDENTITY, lastModified);
+    }
+
+    /**
+     * Cached JSON on heap, copied out of the direct buffer when the cache is off heap.
+     */
+    public Optional<byte[]> get(ContentKey contentKey, Encoding encoding, FileTime lastModified) {
+        return this.lookup(new CacheKey(contentKey, encoding), lastModified).map(Cached::bytes);
+    }
+
+    /**
+     * Cached JSON ready to be sent, streamed from its direct buffer when the cache is off heap.
+     */
+    public Optional<ContentPayload> getPayload(ContentKey contentKey, Encoding encoding, FileTime lastModified) {
+        return this.lookup(new CacheKey(contentKey, encoding), lastModified).map(cached -> cached.json() != null
+                ? new ContentPayload(cached.json(), null, encoding)
+                : ContentPayload.of(cached.buffer(), encoding));
+    }
+
+    private Optional<Cached> lookup(CacheKey key, FileTime lastModified) {
+        Cached cached;
+        synchronized (this) {
+            cached = this.entries.get(key);
+            if (cached != null && !cached.lastModified().equals(lastModified)) {
+                this.remove(key);
+                cached = null;
+            }
+        }
+        if (cached == null) {
+            this.contentMetrics.increaseCacheMissCounter();
+            return Optional.empty();
+        }
+        this.contentMetrics.increaseCacheHitCounter();
+        return Optional.of(cached);
+    }
+
+    public void put(ContentKey key, Path path, FileTime lastModified, byte[] json) {
+        this.put(key, Encoding.IDENTITY, path, lastModified, json);
+    }
+
+    public void put(ContentKey contentKey, Encoding encoding, Path path, FileTime lastModified, byte[] json) {
+        this.store(new CacheKey(contentKey, encoding), json, path, lastModified, null);
+    }
+
+    public synchronized Optional<byte[]> getListing(ListingKey key, String tag) {
+        Cached cached = this.entries.get(key);
+        if (cached == null) {
+            return Optional.empty();
+        }
+        if (!cached.tag().equals(tag)) {
+            this.remove(key);
+            return Optional.empty();
+        }
+        return Optional.of(cached.bytes());
+    }
+
+    public void putListing(ListingKey key, String tag, byte[] json) {
+        this.store(key, json, null, null, tag);
+    }
+
+    private void store(Key key, byte[] json, Path path, FileTime lastModified, String tag) {
+        long size = json.length;
+        if (size > this.maxBytes) {
+            return;
+        }
+        Cached cached = this.offHeap
+                ? new Cached(null, ByteBuffer.allocateDirect(json.length).put(json).flip().asReadOnlyBuffer(), path, lastModified, tag, size)
+                : new Cached(json, null, path, lastModified, tag, size);
+        int evicted = 0;
+        synchronized (this) {
+            this.remove(key);
+            this.entries.put(key, cached);
+            this.usedBytes += size;
+            Iterator<Cached> eldest = this.entries.values().iterator();
+            while (this.usedBytes > this.maxBytes && eldest.hasNext()) {
+                this.usedBytes -= eldest.next().size();
+                eldest.remove();
+                evicted++;
+            }
+        }
+        this.contentMetrics.increaseCacheEvictionCounter(evicted);
+    }
+
+    /**
+     * Remembers that a file too large to be cached was already validated in this version.
+     */
+    public void markValidated(Path path, FileTime lastModified) {
+        this.validated.put(path, lastModified);
+    }
+
+    public boolean isValidated(Path path, FileTime lastModified) {
+        return lastModified.equals(this.validated.get(path));
+    }
+
+    synchronized void onChange(@Observes ContentChange change) {
+        this.validated.keySet().removeIf(change::affects);
+        Iterator<Cached> iterator = this.entries.values().iterator();
+        while (iterator.hasNext()) {
+            Cached cached = iterator.next();
+            if (cached.path() != null && change.affects(cached.path())) {
+                this.usedBytes -= cached.size();
+                iterator.remove();
+            }
+        }
+    }
+
+    synchronized long getUsedBytes() {
+        return this.usedBytes;
+    }
+
+    private void remove(Key key) {
+        Cached removed = this.entries.remove(key);
+        if (removed != null) {
+            this.usedBytes -= removed.size();
+        }
+    }
+
+    private interface Key {
+    }
+
+    public record ListingKey(Lang lang, ContentType type, int limit, Encoding encoding) implements Key {
+    }
+
+    private record CacheKey(ContentKey key, Encoding encoding) implements Key {
+    }
+
+    /**
+     * Content is validated by its file's modification time, a listing by its version tag.
+     */
+    private record Cached(byte[] json, ByteBuffer buffer, Path path, FileTime lastModified, String tag, long size) {
+
+        byte[] bytes() {
+            if (this.json != null) {
+                return this.json;
+            }
+            byte[] copy = new byte[this.buffer.capacity()];
+            this.buffer.get(0, copy);
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2023 Aleksey Popov <alexnerd.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package alexnerd.content.content.control;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Binary snapshot of the {@link ContentIndex}: every indexed directory with its modification time
+ * and the entries of the day directories. Paths are kept relative to the storage root. By default
+ * the snapshot is written next to {@code root.storage.dir} as {@code <root.storage.dir>.catalog},
+ * to a temporary file first which is then moved over the previous snapshot.
+ */
+@ApplicationScoped
+public class ContentCatalog {
+
+    private static final Logger LOG = Logger.getLogger(ContentCatalog.class.getName());
+
+    private static final int MAGIC = 0x43415447;
+
+    private static final int FORMAT_VERSION = 1;
+
+    @Inject
+    @ConfigProperty(name = "root.storage.dir")
+    String baseDir;
+
+    @Inject
+    @ConfigProperty(name = "content.catalog.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @Inject
+    @ConfigProperty(name = "content.catalog.file")
+    Optional<String> file;
+
+    public Optional<Snapshot> read(Path root) {
+        Path catalog = this.getCatalogPath();
+        if (!this.enabled || !Files.isRegularFile(catalog)) {
+            return Optional.empty();
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(catalog)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                LOG.warning("Ignoring catalog of unknown format: " + catalog);
+                return Optional.empty();
+            }
+            int directoryCount = in.readInt();
+            Map<Path, FileTime> directories = new HashMap<>(directoryCount * 2);
+            Map<Path, List<ContentEntry>> entries = new HashMap<>();
+            for (int i = 0; i < directoryCount; i++) {
+                Path relative = Path.of(in.readUTF());
+                Path directory = root.resolve(relative);
+                directories.put(directory, readTime(in));
+                int fileCount = in.readInt();
+                if (fileCount == 0) {
+                    continue;
+                }
+                int year = Integer.parseInt(relative.getName(2).toString());
+                int month = Integer.parseInt(relative.getName(3).toString());
+                int day = Integer.parseInt(relative.getName(4).toString());
+                List<ContentEntry> files = new ArrayList<>(fileCount);
+                for (int j = 0; j < fileCount; j++) {
+                    Path path = directory.resolve(in.readUTF());
+                    FileTime creationTime = readTime(in);
+                    long size = in.readLong();
+                    files.add(new ContentEntry(path, year, month, day, creationTime, size, readTime(in)));
+                }
+                entries.put(directory, files);
+            }
+            Map<Path, List<Path>> children = new HashMap<>();
+            for (Path directory : directories.keySet()) {
+                children.computeIfAbsent(directory.getParent(), parent -> new ArrayList<>()).add(directory);
+            }
+            return Optional.of(new Snapshot(directories, children, entries));
+        } catch (IOException | RuntimeException ex) {
+            LOG.log(Level.WARNING, "Ignoring unreadable catalog: " + catalog, ex);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Entries whose directory is not known are written with an unknown modification time, their
+     * directory is scanned again when the snapshot is loaded.
+     */
+    public void write(Path root, Map<Path, FileTime> directories, Collection<ContentEntry> entries) {
+        if (!this.enabled) {
+            return;
+        }
+        Map<Path, List<ContentEntry>> byDirectory = new HashMap<>();
+        for (ContentEntry entry : entries) {
+            byDirectory.computeIfAbsent(entry.path().getParent(), directory -> new ArrayList<>()).add(entry);
+        }
+        Map<Path, FileTime> times = new HashMap<>(directories);
+        byDirectory.keySet().forEach(directory -> times.putIfAbsent(directory, FileTime.fromMillis(0)));
+        Path catalog = this.getCatalogPath();
+        Path temporary = catalog.resolveSibling(catalog.getFileName() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(times.size());
+                for (Map.Entry<Path, FileTime> directory : times.entrySet()) {
+                    out.writeUTF(root.relativize(directory.getKey()).toString());
+                    writeTime(out, directory.getValue());
+                    List<ContentEntry> files = byDirectory.getOrDefault(directory.getKey(), List.of());
+                    out.writeInt(files.size());
+                    for (ContentEntry entry : files) {
+                        out.writeUTF(entry.path().getFileName().toString());
+                        writeTime(out, entry.creationTime());
+                        out.writeLong(entry.size());
+                        writeTime(out, entry.lastModified());
+                    }
+                }
+            }
+            Files.move(temporary, catalog, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            LOG.log(Level.WARNING, "Can't write catalog: " + catalog, ex);
+            try {
+                Files.deleteIfExists(temporary);
+            } catch (IOException ignored) {
+                // nothing more to do
+            }
+        }
+    }
+
+    Path getCatalogPath() {
+        return Path.of(this.file.orElse(this.baseDir + ".catalog"));
+    }
+
+    private static FileTime readTime(DataInputStream in) throws IOException {
+        return FileTime.from(in.readLong(), TimeUnit.NANOSECONDS);
+    }
+
+    private static void writeTime(DataOutputStream out, FileTime time) throws IOException {
+        out.writeLong(time.to(TimeUnit.NANOSECONDS));
+    }
+
+    /**
+     * Directories with the modification time they had when they were scanned, and the entries of
+     * the day directories among them.
+     */
+    public record Snapshot(Map<Path, FileTime> directories, Map<Path, List<Path>> children,
+                           Map<Path, List<ContentEntry>> entries) {
+
+        public boolean isUnchanged(Path directory, FileTime lastModified) {
+            return lastModified.equals(this.directories.get(directory));
+        }
+
+        public List<Path> children(Path directory) {
+            return this.children.getOrDefault(directory, List.of());
+        }
+
+        public List<ContentEntry> entries(Path directory) {
+            return this.entries.getOrDefault(directory, List.of());
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2023 Aleksey Popov <alexnerd.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package alexnerd.content.content.control;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in a {@link ContentEntry#NEWEST_FIRST} listing: date, creation time and file name of the
+ * last entry a client has seen. Clients get it as an opaque URL safe string.
+ */
+public record ContentCursor(int year, int month, int day, FileTime creationTime, String name) {
+
+    private static final String SEPARATOR = "|";
+
+    public static ContentCursor of(ContentEntry entry) {
+        return new ContentCursor(entry.year(), entry.month(), entry.day(), entry.creationTime(),
+                entry.path().getFileName().toString());
+    }
+
+    /**
+     * Throws a 400 {@link StorageException} unless the cursor is well formed and names a single file.
+     */
+    public static ContentCursor decode(String encoded) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+            String[] parts = decoded.split("\\|", 5);
+            Path name = Path.of(parts[4]);
+            if (name.getNameCount() != 1 || !name.toString().equals(parts[4])) {
+                throw new IllegalArgumentException("Not a file name: " + parts[4]);
+            }
+            return new ContentCursor(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), Integer.parseInt(parts[2]),
+                    FileTime.from(Instant.parse(parts[3])), parts[4]);
+        } catch (IllegalArgumentException | DateTimeParseException | ArrayIndexOutOfBoundsException ex) {
+            throw new StorageException(400, "Invalid cursor: " + encoded);
+        }
+    }
+
+    public String encode() {
+        String plain = String.join(SEPARATOR, String.valueOf(year), String.valueOf(month), String.valueOf(day),
+                creationTime.toInstant().toString(), name);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(plain.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Entry sorting exactly where the cursor points, to search the index with.
+     */
+    ContentEntry toProbe() {
+        return new ContentEntry(Path.of(name), year, month, day, creationTime, 0, creationTime);
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2023 Aleksey Popov <alexnerd.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package alexnerd.content.content.control;
+
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+
+/**
+ * Single content file known to the {@link ContentIndex}: its location in the
+ * {@code lang/baseDir/yyyy/m/d} tree plus the attributes read during the scan.
+ */
+public record ContentEntry(Path path, int year, int month, int day,
+                           FileTime creationTime, long size, FileTime lastModified) {
+
+    /**
+     * Newest date first, then newest creation time, then file name to keep the ordering total.
+     */
+    public static final Comparator<ContentEntry> NEWEST_FIRST = Comparator
+            .comparingInt(ContentEntry::year)
+            .thenComparingInt(ContentEntry::month)
+            .thenComparingInt(ContentEntry::day)
+            .thenComparing(ContentEntry::creationTime)
+            .reversed()
+            .thenComparing(entry -> entry.path().getFileName().toString());
+
+    public String date() {
+        return year + "-" + month + "-" + day;
+    }
+}
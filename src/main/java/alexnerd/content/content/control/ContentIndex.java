@@ -0,0 +1,448 @@
+/*
+ * Copyright 2023 Aleksey Popov <alexnerd.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package alexnerd.content.content.control;
+
+import alexnerd.content.content.control.enums.Lang;
+import alexnerd.content.content.entity.enums.ContentType;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ManagedExecutorService;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Event;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * In-memory view of the {@code lang/baseDir/yyyy/m/d} tree. Every content directory is
+ * scanned once and kept as a set ordered by {@link ContentEntry#NEWEST_FIRST}, so listing
+ * the latest content does not touch the disk. {@link #refresh(Path)} and {@link #rescan()} keep
+ * the view up to date while the service is running and fire a {@link ContentChange} for
+ * everything that depends on it, a rescan only for the files that were added, removed or modified.
+ * <p>
+ * At deployment the view is restored from the {@link ContentCatalog} snapshot in the background:
+ * directories whose modification time still matches the snapshot are taken from it, only the
+ * others are read from disk. The index reports {@link #isReady()} once this is done. A file
+ * rewritten in place while the service was down keeps its directory's modification time, so it is
+ * taken from the snapshot until the next change to it or an explicit {@link #rescan()}.
+ * <p>
+ * With a {@link StorageBackend} that can't be watched the view is listed by the backend instead,
+ * without a catalog snapshot, and kept up to date by periodic rescans.
+ */
+@ApplicationScoped
+public class ContentIndex {
+
+    private static final Logger LOG = Logger.getLogger(ContentIndex.class.getName());
+
+    @Inject
+    @ConfigProperty(name = "root.storage.dir")
+    String baseDir;
+
+    @Inject
+    Event<ContentChange> changes;
+
+    @Inject
+    private ContentCatalog catalog;
+
+    @Inject
+    StorageBackend backend;
+
+    @Resource
+    private ManagedExecutorService executor;
+
+    private Path storageDirectoryPath;
+
+    private volatile boolean ready;
+
+    private final Map<IndexKey, NavigableSet<ContentEntry>> entries = new ConcurrentHashMap<>();
+
+    private final Map<Path, ContentEntry> byPath = new ConcurrentHashMap<>();
+
+    private final Map<Path, FileTime> directories = new ConcurrentHashMap<>();
+
+    private final static int SEARCH_DEPTH = 3;
+
+    private final static int MAX_FILE_CHANGES = 256;
+
+    private final static String FILE_EXTENSION = ".json";
+
+    @PostConstruct
+    public void init() {
+        this.storageDirectoryPath = Path.of(baseDir);
+    }
+
+    void onStart(@Observes @Initialized(ApplicationScoped.class) Object ignored) {
+        this.executor.execute(() -> {
+            try {
+                this.load();
+            } catch (RuntimeException ex) {
+                LOG.log(Level.SEVERE, "Can't load content index", ex);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (this.ready) {
+            this.save();
+        }
+    }
+
+    public boolean isReady() {
+        return this.ready;
+    }
+
+    /**
+     * Builds the whole view, from the catalog snapshot where it is still valid, and writes a fresh snapshot.
+     */
+    public synchronized void load() {
+        Optional<ContentCatalog.Snapshot> snapshot = this.backend.isWatchable()
+                ? this.catalog.read(this.storageDirectoryPath)
+                : Optional.empty();
+        for (IndexKey key : allKeys()) {
+            this.swap(key, snapshot.map(s -> this.restore(key, s)).orElseGet(() -> this.scan(key)));
+        }
+        this.ready = true;
+        this.save();
+        this.changes.fire(new ContentChange(this.storageDirectoryPath));
+    }
+
+    public synchronized void save() {
+        if (!this.backend.isWatchable()) {
+            return;
+        }
+        this.catalog.write(this.storageDirectoryPath, Map.copyOf(this.directories), List.copyOf(this.byPath.values()));
+    }
+
+    /**
+     * Scans every known content directory again and swaps the result in, readers keep
+     * seeing the previous view until the new one is complete.
+     */
+    public synchronized void rescan() {
+        List<Path> changed = new ArrayList<>();
+        for (IndexKey key : List.copyOf(this.entries.keySet())) {
+            changed.addAll(this.swap(key, this.scan(key)));
+        }
+        if (this.ready) {
+            this.save();
+        }
+        this.fire(changed);
+    }
+
+    /**
+     * A change per file, or a single one for the whole storage when too many files changed at once.
+     */
+    private void fire(List<Path> changed) {
+        if (changed.size() > MAX_FILE_CHANGES) {
+            this.changes.fire(new ContentChange(this.storageDirectoryPath));
+            return;
+        }
+        changed.forEach(path -> this.changes.fire(new ContentChange(path)));
+    }
+
+    /**
+     * Brings a single file or a whole subtree of the storage in line with the disk: entries under
+     * {@code path} are dropped and whatever exists there now is indexed again.
+     */
+    public synchronized void refresh(Path path) {
+        Path relative = this.storageDirectoryPath.relativize(path);
+        if (!path.startsWith(this.storageDirectoryPath) || relative.getNameCount() < 2) {
+            this.rescan();
+            return;
+        }
+        Optional<IndexKey> key = this.toKey(relative);
+        if (key.isEmpty()) {
+            return;
+        }
+        NavigableSet<ContentEntry> indexed = this.entries.get(key.get());
+        if (indexed == null) {
+            // not scanned yet, the first access will pick the change up
+            return;
+        }
+        ContentEntry existing = this.byPath.remove(path);
+        if (existing != null) {
+            indexed.remove(existing);
+        } else {
+            indexed.removeIf(entry -> entry.path().startsWith(path));
+            this.byPath.keySet().removeIf(indexedPath -> indexedPath.startsWith(path));
+            this.directories.keySet().removeIf(directory -> directory.startsWith(path));
+        }
+        if (Files.exists(path)) {
+            this.walk(this.toDirectory(key.get()), path, entry -> {
+                indexed.add(entry);
+                this.byPath.put(entry.path(), entry);
+            });
+        }
+        this.changes.fire(new ContentChange(path));
+    }
+
+    public Optional<ContentEntry> find(Path path) {
+        return Optional.ofNullable(this.byPath.get(path));
+    }
+
+    public List<ContentEntry> last(Lang lang, ContentType type, int limit) {
+        return this.entries(lang, type).stream()
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * Up to {@code size} entries following {@code after} in {@link ContentEntry#NEWEST_FIRST} order,
+     * from the newest one if {@code after} is {@code null}. The cursor entry doesn't have to exist anymore.
+     */
+    public List<ContentEntry> page(Lang lang, ContentType type, ContentCursor after, int size) {
+        NavigableSet<ContentEntry> indexed = this.entries(lang, type);
+        NavigableSet<ContentEntry> tail = after == null ? indexed : indexed.tailSet(after.toProbe(), false);
+        return tail.stream()
+                .limit(size)
+                .toList();
+    }
+
+    /**
+     * Up to {@code size} entries dated from {@code from} to {@code to} inclusive following {@code after},
+     * newest first.
+     */
+    public List<ContentEntry> range(Lang lang, ContentType type, LocalDate from, LocalDate to,
+                                    ContentCursor after, int size) {
+        ContentEntry start = probe(to, FileTime.from(Instant.MAX));
+        ContentEntry end = probe(from, FileTime.from(Instant.MIN));
+        boolean inclusive = true;
+        if (after != null && ContentEntry.NEWEST_FIRST.compare(after.toProbe(), start) > 0) {
+            start = after.toProbe();
+            inclusive = false;
+        }
+        if (ContentEntry.NEWEST_FIRST.compare(start, end) > 0) {
+            return List.of();
+        }
+        return this.entries(lang, type).subSet(start, inclusive, end, true).stream()
+                .limit(size)
+                .toList();
+    }
+
+    /**
+     * Scans a directory that isn't indexed yet outside of the map, so a slow scan before {@link #load()}
+     * finished doesn't block other readers. Concurrent first readers may scan twice, the first result wins.
+     */
+    NavigableSet<ContentEntry> entries(Lang lang, ContentType type) {
+        IndexKey key = new IndexKey(lang, type.getBaseDir());
+        NavigableSet<ContentEntry> indexed = this.entries.get(key);
+        if (indexed != null) {
+            return indexed;
+        }
+        NavigableSet<ContentEntry> scanned = this.scan(key);
+        NavigableSet<ContentEntry> previous = this.entries.putIfAbsent(key, scanned);
+        if (previous != null) {
+            return previous;
+        }
+        scanned.forEach(entry -> this.byPath.put(entry.path(), entry));
+        return scanned;
+    }
+
+    /**
+     * Replaces the entries of {@code key} and returns the paths that were added, removed or modified.
+     */
+    private List<Path> swap(IndexKey key, NavigableSet<ContentEntry> current) {
+        NavigableSet<ContentEntry> previous = this.entries.put(key, current);
+        Map<Path, ContentEntry> removed = new HashMap<>();
+        if (previous != null) {
+            previous.forEach(entry -> removed.put(entry.path(), entry));
+        }
+        List<Path> changed = new ArrayList<>();
+        for (ContentEntry entry : current) {
+            if (!entry.equals(removed.remove(entry.path()))) {
+                changed.add(entry.path());
+            }
+            this.byPath.put(entry.path(), entry);
+        }
+        for (Path path : removed.keySet()) {
+            this.byPath.remove(path);
+            changed.add(path);
+        }
+        return changed;
+    }
+
+    private NavigableSet<ContentEntry> scan(IndexKey key) {
+        NavigableSet<ContentEntry> scanned = new ConcurrentSkipListSet<>(ContentEntry.NEWEST_FIRST);
+        Path directory = this.toDirectory(key);
+        this.directories.keySet().removeIf(path -> path.startsWith(directory));
+        if (!this.backend.isWatchable()) {
+            scanned.addAll(this.backend.list(directory));
+        } else if (Files.isDirectory(directory)) {
+            this.walk(directory, directory, scanned::add);
+        }
+        return scanned;
+    }
+
+    private NavigableSet<ContentEntry> restore(IndexKey key, ContentCatalog.Snapshot snapshot) {
+        NavigableSet<ContentEntry> restored = new ConcurrentSkipListSet<>(ContentEntry.NEWEST_FIRST);
+        Path directory = this.toDirectory(key);
+        this.directories.keySet().removeIf(path -> path.startsWith(directory));
+        try {
+            this.restore(directory, directory, 0, snapshot, restored::add);
+        } catch (IOException ex) {
+            throw new StorageException("Can't index content directory: " + directory, ex);
+        }
+        return restored;
+    }
+
+    /**
+     * Takes an unchanged day directory from the snapshot and walks a changed one, changed directories
+     * above are listed to find out which of their children are still unchanged.
+     */
+    private void restore(Path contentDirectory, Path directory, int depth, ContentCatalog.Snapshot snapshot,
+                         Consumer<ContentEntry> consumer) throws IOException {
+        FileTime lastModified;
+        try {
+            lastModified = Files.getLastModifiedTime(directory);
+        } catch (NoSuchFileException ex) {
+            return;
+        }
+        boolean unchanged = snapshot.isUnchanged(directory, lastModified);
+        if (depth == SEARCH_DEPTH) {
+            if (unchanged) {
+                this.directories.put(directory, lastModified);
+                snapshot.entries(directory).forEach(consumer);
+            } else {
+                this.walk(contentDirectory, directory, consumer);
+            }
+            return;
+        }
+        this.directories.put(directory, lastModified);
+        List<Path> children = unchanged ? snapshot.children(directory) : this.listDirectories(directory);
+        for (Path child : children) {
+            this.restore(contentDirectory, child, depth + 1, snapshot, consumer);
+        }
+    }
+
+    private List<Path> listDirectories(Path directory) throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, Files::isDirectory)) {
+            List<Path> children = new ArrayList<>();
+            stream.forEach(children::add);
+            return children;
+        } catch (NoSuchFileException ex) {
+            return List.of();
+        }
+    }
+
+    private void walk(Path contentDirectory, Path start, Consumer<ContentEntry> consumer) {
+        int depth = start.equals(contentDirectory) ? 0 : contentDirectory.relativize(start).getNameCount();
+        if (depth > SEARCH_DEPTH + 1) {
+            return;
+        }
+        try {
+            Files.walkFileTree(start, EnumSet.noneOf(FileVisitOption.class), SEARCH_DEPTH + 1 - depth,
+                    new SimpleFileVisitor<>() {
+                        @Override
+                        public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                            directories.put(dir, attrs.lastModifiedTime());
+                            return FileVisitResult.CONTINUE;
+                        }
+
+                        @Override
+                        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                            toEntry(contentDirectory, file, attrs).ifPresent(consumer);
+                            return FileVisitResult.CONTINUE;
+                        }
+
+                        @Override
+                        public FileVisitResult visitFileFailed(Path file, IOException ex) {
+                            // removed between listing and reading, the next event takes care of it
+                            return FileVisitResult.CONTINUE;
+                        }
+                    });
+        } catch (IOException ex) {
+            throw new StorageException("Can't index content directory: " + start, ex);
+        }
+    }
+
+    private Path toDirectory(IndexKey key) {
+        return this.storageDirectoryPath
+                .resolve(key.lang().name())
+                .resolve(key.baseDir());
+    }
+
+    private static ContentEntry probe(LocalDate date, FileTime creationTime) {
+        return new ContentEntry(Path.of(""), date.getYear(), date.getMonthValue(), date.getDayOfMonth(),
+                creationTime, 0, creationTime);
+    }
+
+    private static List<IndexKey> allKeys() {
+        return Arrays.stream(Lang.values())
+                .flatMap(lang -> Arrays.stream(ContentType.values()).map(type -> new IndexKey(lang, type.getBaseDir())))
+                .distinct()
+                .toList();
+    }
+
+    private Optional<IndexKey> toKey(Path relative) {
+        String lang = relative.getName(0).toString();
+        String baseDir = relative.getName(1).toString();
+        boolean knownLang = Arrays.stream(Lang.values()).anyMatch(l -> l.name().equals(lang));
+        boolean knownBaseDir = Arrays.stream(ContentType.values()).anyMatch(t -> t.getBaseDir().equals(baseDir));
+        if (!knownLang || !knownBaseDir) {
+            return Optional.empty();
+        }
+        return Optional.of(new IndexKey(Lang.valueOf(lang), baseDir));
+    }
+    static Optional<ContentEntry> toEntry(Path contentDirectory, Path file, BasicFileAttributes attrs) {
+        Path relative = contentDirectory.relativize(file);
+        if (!attrs.isRegularFile()
+                || relative.getNameCount() != SEARCH_DEPTH + 1
+                || !file.getFileName().toString().endsWith(FILE_EXTENSION)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(new ContentEntry(file,
+                    Integer.parseInt(relative.getName(0).toString()),
+                    Integer.parseInt(relative.getName(1).toString()),
+                    Integer.parseInt(relative.getName(2).toString()),
+                    attrs.creationTime(), attrs.size(), attrs.lastModifiedTime()));
+        } catch (NumberFormatException ex) {
+            return Optional.empty();
+        }
+    }
+
+    private record IndexKey(Lang lang, String baseDir) {
+    }
+}
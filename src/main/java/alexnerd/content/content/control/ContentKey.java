@@ -0,0 +1,26 @@
+/*
+ * Copyright 2023 Aleksey Popov <alexnerd.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package alexnerd.content.content.control;
+
+import alexnerd.content.content.control.enums.Lang;
+import alexnerd.content.content.entity.enums.ContentType;
+
+/**
+ * Identifies a single piece of content as requested, {@code fileName} is the normalized title.
+ */
+public record ContentKey(Lang lang, ContentType type, String date, String fileName) {
+}
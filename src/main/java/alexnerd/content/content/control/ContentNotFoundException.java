@@ -0,0 +1,28 @@
+/*
+ * Copyright 2023 Aleksey Popov <alexnerd.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package alexnerd.content.content.control;
+
+/**
+ * Requested content doesn't exist. Thrown for every request of a missing title, so it carries no
+ * stack trace and no response; it is turned into a 404 at the boundary.
+ */
+public class ContentNotFoundException extends RuntimeException {
+
+    public ContentNotFoundException(String message) {
+        super(message, null, false, false);
+    }
+}
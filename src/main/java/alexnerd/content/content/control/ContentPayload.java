@@ -0,0 +1,50 @@
+/*
+ * Copyright 2023 Aleksey Popov <alexnerd.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package alexnerd.content.content.control;
+
+import jakarta.ws.rs.core.StreamingOutput;
+
+import java.nio.ByteBuffer;
+
+/**
+ * JSON of a single piece of content ready to be handed to JAX-RS, either held on heap or streamed
+ * from its file or an off heap buffer, in the given content coding.
+ */
+public record ContentPayload(byte[] json, StreamingOutput stream, Encoding encoding) {
+
+    private static final int CHUNK_SIZE = 8192;
+
+    public Object entity() {
+        return json != null ? json : stream;
+    }
+
+    /**
+     * Streams the buffer in chunks without copying it to heap as a whole, the buffer itself is not consumed.
+     */
+    public static ContentPayload of(ByteBuffer buffer, Encoding encoding) {
+        StreamingOutput stream = output -> {
+            ByteBuffer source = buffer.duplicate();
+            byte[] chunk = new byte[Math.min(CHUNK_SIZE, source.remaining())];
+            while (source.hasRemaining()) {
+                int length = Math.min(chunk.length, source.remaining());
+                source.get(chunk, 0, length);
+                output.write(chunk, 0, length);
+            }
+        };
+        return new ContentPayload(null, stream, encoding);
+    }
+}
@@ -16,18 +16,45 @@
 
 package alexnerd.content.content.control;
 
+import alexnerd.content.content.control.ContentCache.ListingKey;
+import alexnerd.content.content.control.adapters.Compression;
 import alexnerd.content.content.control.adapters.ContentDeserializer;
+import alexnerd.content.content.control.adapters.JsonBatch;
+import alexnerd.content.content.control.adapters.JsonArrays;
 import alexnerd.content.content.control.enums.Lang;
 import alexnerd.content.content.entity.Content;
+import alexnerd.content.content.entity.ContentReference;
 import alexnerd.content.content.entity.enums.ContentType;
 import alexnerd.content.metrics.ContentMetrics;
+import alexnerd.content.metrics.ContentMetrics.CacheResult;
+import alexnerd.content.metrics.ContentMetrics.Stage;
 import jakarta.inject.Inject;
+import jakarta.ws.rs.WebApplicationException;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.BiFunction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 public class ContentStore {
 
+    private static final Logger LOG = Logger.getLogger(ContentStore.class.getName());
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("u-M-d")
+            .withResolverStyle(ResolverStyle.STRICT);
+
     @Inject
     private TitleNormalizer normalizer;
 
@@ -37,22 +64,311 @@ public class ContentStore {
     @Inject
     private Storage storage;
 
-    public Content read(Lang lang, ContentType type, String date, String title) {
+    @Inject
+    private ContentCache cache;
+
+    @Inject
+    private ParallelReader reader;
+
+    @Inject
+    private MissingContentCache missingContent;
+
+    @Inject
+    private SearchIndex searchIndex;
+
+    @Inject
+    private TeaserIndex teasers;
+
+    @Inject
+    @ConfigProperty(name = "content.streaming.threshold", defaultValue = "131072")
+    long streamingThreshold;
+
+    /**
+     * Reads content the way clients get it, but without counting a hit, recording metrics or filling
+     * the caches. Meant for health checks, empty if there is no such content.
+     */
+    public Optional<Content> peek(Lang lang, ContentType type, String date, String title) {
+        Path contentPath = storage.constructContentPath(lang, type, canonicalDate(date), normalizer.normalize(title));
+        try {
+            storage.getAttributes(contentPath);
+        } catch (FileNotFoundException ex) {
+            return Optional.empty();
+        }
+        return Optional.of(ContentDeserializer.deserialize(storage.readContent(contentPath), type));
+    }
+
+    public byte[] readJson(Lang lang, ContentType type, String date, String title) {
+        return this.readJson(this.resolve(lang, type, date, title));
+    }
+
+    /**
+     * Resolves the requested content to its file without reading it, throws a {@link ContentNotFoundException}
+     * if there is none. Paths found missing are remembered, repeated requests don't touch the disk.
+     * The date is parsed into its canonical {@code yyyy-M-d}, so every spelling of it is the same content.
+     */
+    public ContentFile resolve(Lang lang, ContentType type, String requestedDate, String title) {
+        long start = System.nanoTime();
+        String date = canonicalDate(requestedDate);
         String fileName = normalizer.normalize(title);
+        long normalized = System.nanoTime();
+        contentMetrics.updateStage(Stage.NORMALIZE, type, CacheResult.NONE, normalized - start);
+        ContentKey key = new ContentKey(lang, type, date, fileName);
+        Path contentPath = storage.constructContentPath(lang, type, date, fileName);
+        if (missingContent.isMissing(contentPath)) {
+            throw this.notFound(fileName);
+        }
         try {
-            String stringified = storage.getContent(lang, type, date, fileName);
-            contentMetrics.increaseHitCounter(title);
-            return ContentDeserializer.deserialize(stringified, type);
+            BasicFileAttributes attributes = storage.getAttributes(contentPath);
+            contentMetrics.updateStage(Stage.STAT, type, CacheResult.NONE, System.nanoTime() - normalized);
+            contentMetrics.increaseHitCounter(key);
+            return new ContentFile(key, contentPath, attributes.lastModifiedTime(), attributes.size());
         } catch (FileNotFoundException ex) {
-            contentMetrics.increaseNotExistingContentCounter();
-            throw new StorageException(404, "Can't fetch content: " + fileName);
+            missingContent.markMissing(contentPath);
+            throw this.notFound(fileName);
+        }
+    }
+
+    /**
+     * Loads the newest entries into the caches, see {@link #warm(List)}.
+     */
+    public int warm(Lang lang, ContentType type, int limit) {
+        return this.warm(this.lastEntries(lang, type, limit).stream()
+                .map(entry -> toKey(lang, type, entry))
+                .toList());
+    }
+
+    /**
+     * Loads the content into the caches concurrently, plain and compressed, the way requests would but without
+     * counting hits. Returns how much of it could be loaded, content that is gone or broken is skipped.
+     */
+    public int warm(List<ContentKey> keys) {
+        return (int) reader.map(keys, this::warm).stream()
+                .filter(Boolean::booleanValue)
+                .count();
+    }
+
+    private boolean warm(ContentKey key) {
+        Path contentPath = storage.constructContentPath(key.lang(), key.type(), key.date(), key.fileName());
+        try {
+            BasicFileAttributes attributes = storage.getAttributes(contentPath);
+            ContentFile file = new ContentFile(key, contentPath, attributes.lastModifiedTime(), attributes.size());
+            this.readPayload(file, Encoding.IDENTITY);
+            this.readPayload(file, Encoding.GZIP);
+            return true;
+        } catch (FileNotFoundException | RuntimeException ex) {
+            return false;
         }
     }
 
-    public List<Content> readLast(Lang lang, ContentType type, int limit) {
-        return storage.getLastContent(lang, type, limit)
-                .stream()
-                .map(string -> ContentDeserializer.deserialize(string, type))
-                .toList();
+    private ContentNotFoundException notFound(String fileName) {
+        contentMetrics.increaseNotExistingContentCounter();
+        return new ContentNotFoundException("Can't fetch content: " + fileName);
+    }
+
+    /**
+     * JSON of the content as it is sent to clients. Files are validated once when they are loaded
+     * into the cache, {@code POST}, {@code ARTICLE} and {@code ARTICLE_TEASER} are served as stored,
+     * {@code LAST_ARTICLES} as its projection. Stored files larger than {@code content.streaming.threshold}
+     * bytes are streamed from disk instead of being held on heap. Compressed variants are produced
+     * on first request and cached like the uncompressed JSON. Cached JSON is sent as it is held by the cache,
+     * on heap or off heap, without being decoded.
+     */
+    public ContentPayload readPayload(ContentFile file, Encoding encoding) {
+        ContentType type = file.key().type();
+        boolean large = type != ContentType.LAST_ARTICLES && file.size() > this.streamingThreshold;
+        if (large) {
+            this.validate(type, file.path(), file.lastModified());
+        }
+        if (large && encoding == Encoding.IDENTITY) {
+            return new ContentPayload(null, storage.streamContent(file.path()), Encoding.IDENTITY);
+        }
+        long start = System.nanoTime();
+        Optional<ContentPayload> cached = cache.getPayload(file.key(), encoding, file.lastModified());
+        if (cached.isPresent()) {
+            contentMetrics.updateStage(Stage.READ, type, CacheResult.HIT, System.nanoTime() - start);
+            return cached.get();
+        }
+        if (encoding == Encoding.GZIP) {
+            byte[] gzip = large ? this.gzip(file.path()) : Compression.gzip(this.readJson(file));
+            cache.put(file.key(), Encoding.GZIP, file.path(), file.lastModified(), gzip);
+            return new ContentPayload(gzip, null, Encoding.GZIP);
+        }
+        return new ContentPayload(this.loadJson(file.key(), file.path(), file.lastModified(), file.size()), null, Encoding.IDENTITY);
+    }
+
+    /**
+     * Reads the referenced content concurrently, in the order given. Every item carries its own status,
+     * content that can't be served doesn't fail the rest of the batch.
+     */
+    public List<byte[]> readBatch(Lang lang, ContentType type, List<ContentReference> references) {
+        return reader.map(references, reference -> {
+            String date = reference == null ? null : reference.date();
+            String title = reference == null ? null : reference.title();
+            if (date == null || title == null) {
+                return JsonBatch.item(date, title, 400, null);
+            }
+            try {
+                return JsonBatch.item(date, title, 200, this.readJson(lang, type, date, title));
+            } catch (ContentNotFoundException ex) {
+                return JsonBatch.item(date, title, 404, null);
+            } catch (WebApplicationException ex) {
+                return JsonBatch.item(date, title, ex.getResponse().getStatus(), null);
+            } catch (RuntimeException ex) {
+                LOG.log(Level.WARNING, "Can't read batch item " + date + "/" + title, ex);
+                return JsonBatch.item(date, title, 500, null);
+            }
+        });
+    }
+
+    public List<ContentEntry> lastEntries(Lang lang, ContentType type, int limit) {
+        return storage.getLastEntries(lang, type, limit);
+    }
+
+    /**
+     * Page of entries following the opaque {@code cursor}, from the newest one if it is {@code null}.
+     * Throws a 400 {@link StorageException} if the cursor can't be decoded.
+     */
+    public ContentPage page(Lang lang, ContentType type, String cursor, int size) {
+        return page(cursor, size, (after, limit) -> storage.getEntries(lang, type, after, limit));
+    }
+
+    /**
+     * Page of entries dated from {@code from} to {@code to} inclusive, both given as {@code yyyy-M-d}.
+     */
+    public ContentPage pageByDate(Lang lang, ContentType type, String from, String to, String cursor, int size) {
+        LocalDate fromDate = parseDate(from);
+        LocalDate toDate = parseDate(to);
+        return page(cursor, size, (after, limit) -> storage.getEntries(lang, type, fromDate, toDate, after, limit));
+    }
+
+    /**
+     * Page of entries of the rubric, ignoring case. Rubrics are known once the content has been indexed for search.
+     */
+    public ContentPage pageByRubric(Lang lang, ContentType type, String rubric, String cursor, int size) {
+        return page(cursor, size, (after, limit) -> searchIndex.byRubric(lang, type, rubric, after, limit));
+    }
+
+    private static ContentPage page(String cursor, int size, BiFunction<ContentCursor, Integer, List<ContentEntry>> fetch) {
+        ContentCursor after = cursor == null || cursor.isBlank() ? null : ContentCursor.decode(cursor);
+        List<ContentEntry> entries = fetch.apply(after, size + 1);
+        if (entries.size() <= size) {
+            return new ContentPage(entries, null);
+        }
+        List<ContentEntry> page = entries.subList(0, size);
+        return new ContentPage(page, ContentCursor.of(page.get(size - 1)).encode());
+    }
+
+    /**
+     * JSON array of the given entries, kept per request shape until {@code version} changes.
+     */
+    public byte[] readLastJson(Lang lang, ContentType type, List<ContentEntry> entries, ContentVersion version,
+                               Encoding encoding) {
+        ListingKey key = new ListingKey(lang, type, entries.size(), encoding);
+        return cache.getListing(key, version.tag()).orElseGet(() -> {
+            List<byte[]> items = this.readJson(lang, type, entries);
+            long start = System.nanoTime();
+            byte[] json = JsonArrays.join(items);
+            byte[] encoded = encoding == Encoding.GZIP ? Compression.gzip(json) : json;
+            contentMetrics.updateStage(Stage.SERIALIZE, type, CacheResult.MISS, System.nanoTime() - start);
+            cache.putListing(key, version.tag(), encoded);
+            return encoded;
+        });
+    }
+
+    /**
+     * Reads and deserializes the entries concurrently, in the order given.
+     */
+    public List<byte[]> readJson(Lang lang, ContentType type, List<ContentEntry> entries) {
+        return reader.map(entries, entry -> this.readJson(toKey(lang, type, entry), entry.path(), entry.lastModified(), entry.size()));
+    }
+
+    private byte[] readJson(ContentFile file) {
+        return this.readJson(file.key(), file.path(), file.lastModified(), file.size());
+    }
+
+    private byte[] gzip(Path contentPath) {
+        try {
+            return Compression.gzip(storage.open(contentPath));
+        } catch (IOException ex) {
+            throw new StorageException("Can't compress content from file: " + contentPath.getFileName(), ex);
+        }
+    }
+
+    /**
+     * Served from the cache, or from the {@link TeaserIndex} for {@code LAST_ARTICLES}, the read stage
+     * is the lookup, otherwise the file is read from disk.
+     */
+    private byte[] readJson(ContentKey key, Path contentPath, FileTime lastModified, long size) {
+        long start = System.nanoTime();
+        Optional<byte[]> cached = key.type() == ContentType.LAST_ARTICLES
+                ? teasers.get(key.lang(), contentPath, lastModified).or(() -> cache.get(key, lastModified))
+                : cache.get(key, lastModified);
+        if (cached.isPresent()) {
+            contentMetrics.updateStage(Stage.READ, key.type(), CacheResult.HIT, System.nanoTime() - start);
+            return cached.get();
+        }
+        return this.loadJson(key, contentPath, lastModified, size);
+    }
+
+    /**
+     * Stored files larger than {@code content.streaming.threshold} bytes are read but not cached,
+     * their {@code LAST_ARTICLES} projection is.
+     */
+    private byte[] loadJson(ContentKey key, Path contentPath, FileTime lastModified, long size) {
+        byte[] json = this.load(key.type(), contentPath);
+        if (key.type() == ContentType.LAST_ARTICLES || size <= this.streamingThreshold) {
+            cache.put(key, contentPath, lastModified, json);
+        }
+        return json;
+    }
+
+    private byte[] load(ContentType type, Path contentPath) {
+        long start = System.nanoTime();
+        byte[] stored = storage.readBytes(contentPath);
+        long read = System.nanoTime();
+        contentMetrics.updateStage(Stage.READ, type, CacheResult.MISS, read - start);
+        Content content = type == ContentType.LAST_ARTICLES
+                ? ContentDeserializer.teaser(stored)
+                : ContentDeserializer.deserialize(new String(stored, StandardCharsets.UTF_8), type);
+        long deserialized = System.nanoTime();
+        contentMetrics.updateStage(Stage.DESERIALIZE, type, CacheResult.MISS, deserialized - read);
+        if (type != ContentType.LAST_ARTICLES) {
+            return stored;
+        }
+        byte[] projection = ContentDeserializer.teaserJson(content);
+        contentMetrics.updateStage(Stage.SERIALIZE, type, CacheResult.MISS, System.nanoTime() - deserialized);
+        return projection;
+    }
+
+    private void validate(ContentType type, Path contentPath, FileTime lastModified) {
+        if (!cache.isValidated(contentPath, lastModified)) {
+            this.load(type, contentPath);
+            cache.markValidated(contentPath, lastModified);
+        }
+    }
+
+    private static LocalDate parseDate(String date) {
+        try {
+            LocalDate parsed = LocalDate.parse(date, DATE_FORMAT);
+            if (parsed.getYear() < 1) {
+                throw new StorageException(400, "Invalid date: " + date);
+            }
+            return parsed;
+        } catch (DateTimeParseException ex) {
+            throw new StorageException(400, "Invalid date: " + date);
+        }
+    }
+
+    /**
+     * Date as the content directories spell it, the same as {@link ContentEntry#date()}.
+     */
+    static String canonicalDate(String date) {
+        LocalDate parsed = parseDate(date);
+        return parsed.getYear() + "-" + parsed.getMonthValue() + "-" + parsed.getDayOfMonth();
+    }
+
+    static ContentKey toKey(Lang lang, ContentType type, ContentEntry entry) {
+        String fileName = entry.path().getFileName().toString();
+        return new ContentKey(lang, type, entry.date(), fileName.substring(0, fileName.lastIndexOf('.')));
     }
 }
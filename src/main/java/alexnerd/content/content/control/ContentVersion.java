@@ -0,0 +1,48 @@
+/*
+ * Copyright 2023 Aleksey Popov <alexnerd.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package alexnerd.content.content.control;
+
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+/**
+ * Validators of a response, derived from file attributes only so they can be checked
+ * without reading any content. {@code tag} is the value of a strong entity tag, {@code lastModified}
+ * is {@code null} when the response has no modification time to validate by.
+ */
+public record ContentVersion(FileTime lastModified, String tag) {
+
+    public static ContentVersion of(FileTime lastModified, long size) {
+        return new ContentVersion(lastModified,
+                Long.toHexString(lastModified.toMillis()) + "-" + Long.toHexString(size));
+    }
+
+    /**
+     * Version of a listing, changes whenever an entry is added, removed, reordered or modified. A listing has
+     * no {@code lastModified}: the newest file's time stays or goes back when entries are removed or published
+     * with preserved times, so only the tag can tell whether the listing changed.
+     */
+    public static ContentVersion of(List<ContentEntry> entries) {
+        long hash = 1125899906842597L;
+        for (ContentEntry entry : entries) {
+            hash = 31 * hash + entry.path().toString().hashCode();
+            hash = 31 * hash + entry.lastModified().toMillis();
+            hash = 31 * hash + entry.size();
+        }
+        return new ContentVersion(null, Integer.toHexString(entries.size()) + "-" + Long.toHexString(hash));
+    }
+}
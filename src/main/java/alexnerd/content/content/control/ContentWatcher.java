@@ -0,0 +1,224 @@
+/*
+ * Copyright 2023 Aleksey Popov <alexnerd.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package alexnerd.content.content.control;
+
+import alexnerd.content.metrics.ContentMetrics;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ManagedScheduledExecutorService;
+import jakarta.enterprise.concurrent.ManagedThreadFactory;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+/**
+ * Keeps the {@link ContentIndex} in line with files added, changed or removed while the service
+ * is running. Every directory of the {@code lang/baseDir/yyyy/m/d} hierarchy is registered with
+ * a {@link WatchService} and events are applied one path at a time. Lost events (overflow) are
+ * covered by a full rescan, and if the file system can't be watched at all the index is rescanned
+ * periodically instead, as it is for a {@link StorageBackend} that can't be watched.
+ */
+@ApplicationScoped
+public class ContentWatcher {
+
+    private static final Logger LOG = Logger.getLogger(ContentWatcher.class.getName());
+
+    /**
+     * root, lang, baseDir, year, month, day
+     */
+    private final static int WATCH_DEPTH = 5;
+
+    @Inject
+    private Storage storage;
+
+    @Inject
+    private ContentIndex index;
+
+    @Inject
+    private ContentMetrics contentMetrics;
+
+    @Inject
+    private StorageBackend backend;
+
+    @Resource
+    private ManagedThreadFactory threadFactory;
+
+    @Resource
+    private ManagedScheduledExecutorService scheduler;
+
+    @Inject
+    @ConfigProperty(name = "content.watcher.enabled", defaultValue = "true")
+    private boolean enabled;
+
+    @Inject
+    @ConfigProperty(name = "content.watcher.rescan.interval", defaultValue = "300")
+    private long rescanIntervalInSeconds;
+
+    private WatchService watchService;
+
+    private final Map<WatchKey, Path> directories = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean rescanPending = new AtomicBoolean();
+
+    void onStart(@Observes @Initialized(ApplicationScoped.class) Object ignored) {
+        if (!this.enabled) {
+            return;
+        }
+        Path root = this.storage.getStorageDirectoryPath();
+        if (!this.backend.isWatchable()) {
+            this.scheduleRescan();
+            return;
+        }
+        try {
+            this.watchService = root.getFileSystem().newWatchService();
+            this.register(root);
+            this.threadFactory.newThread(this::watch).start();
+        } catch (IOException | UnsupportedOperationException ex) {
+            LOG.log(Level.WARNING, "Can't watch " + root + ", falling back to periodic rescan", ex);
+            this.scheduleRescan();
+        }
+    }
+
+    private void scheduleRescan() {
+        this.scheduler.scheduleWithFixedDelay(this.index::rescan,
+                this.rescanIntervalInSeconds, this.rescanIntervalInSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (this.watchService == null) {
+            return;
+        }
+        try {
+            this.watchService.close();
+        } catch (IOException ex) {
+            LOG.log(Level.FINE, "Can't close watch service", ex);
+        }
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = this.watchService.take();
+                Path directory = this.directories.get(key);
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == OVERFLOW || directory == null) {
+                        this.requestRescan();
+                        continue;
+                    }
+                    this.apply(directory.resolve((Path) event.context()), event.kind());
+                }
+                if (!key.reset()) {
+                    this.directories.remove(key);
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException ex) {
+            // service stopped
+        }
+    }
+
+    private void apply(Path changed, WatchEvent.Kind<?> kind) {
+        try {
+            if (Files.isDirectory(changed)) {
+                if (kind == ENTRY_MODIFY) {
+                    return;
+                }
+                this.register(changed);
+            }
+            this.index.refresh(changed);
+            this.index.find(changed).ifPresent(entry -> this.contentMetrics.updateRefreshLag(
+                    Duration.between(entry.lastModified().toInstant(), Instant.now())));
+        } catch (IOException | RuntimeException ex) {
+            LOG.log(Level.WARNING, "Can't apply change of " + changed + ", rescanning", ex);
+            this.requestRescan();
+        }
+    }
+
+    private void requestRescan() {
+        if (this.rescanPending.compareAndSet(false, true)) {
+            this.scheduler.execute(() -> {
+                this.rescanPending.set(false);
+                try {
+                    this.register(this.storage.getStorageDirectoryPath());
+                } catch (IOException ex) {
+                    LOG.log(Level.WARNING, "Can't register content directories", ex);
+                }
+                this.index.rescan();
+            });
+        }
+    }
+
+    private void register(Path start) throws IOException {
+        Path root = this.storage.getStorageDirectoryPath();
+        int depth = start.equals(root) ? 0 : root.relativize(start).getNameCount();
+        if (depth > WATCH_DEPTH) {
+            return;
+        }
+        Files.walkFileTree(start, EnumSet.noneOf(FileVisitOption.class), WATCH_DEPTH - depth,
+                new SimpleFileVisitor<>() {
+                    @Override
+                    public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                        watch(dir);
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                        // day directories are reached at the maximum depth, their files are not listed
+                        if (attrs.isDirectory()) {
+                            watch(file);
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+    }
+
+    private void watch(Path directory) throws IOException {
+        WatchKey key = directory.register(this.watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+        this.directories.put(key, directory);
+    }
+}
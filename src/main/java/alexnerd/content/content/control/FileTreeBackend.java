@@ -0,0 +1,134 @@
+/*
+ * Copyright 2023 Aleksey Popov <alexnerd.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package alexnerd.content.content.control;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Typed;
+import jakarta.ws.rs.core.StreamingOutput;
+
+import java.io.EOFException;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * Content read straight from the {@code lang/baseDir/yyyy/m/d} tree, one file per piece of content.
+ */
+@ApplicationScoped
+@Typed(FileTreeBackend.class)
+public class FileTreeBackend implements StorageBackend {
+
+    /**
+     * year, month, day, file
+     */
+    private final static int SEARCH_DEPTH = 4;
+
+    @Override
+    public BasicFileAttributes getAttributes(Path contentPath) throws FileNotFoundException {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(contentPath, BasicFileAttributes.class);
+            if (!attributes.isRegularFile()) {
+                throw new FileNotFoundException("Can't fetch content: " + contentPath.getFileName());
+            }
+            return attributes;
+        } catch (NoSuchFileException ex) {
+            throw new FileNotFoundException("Can't fetch content: " + contentPath.getFileName());
+        } catch (IOException ex) {
+            throw new StorageException("Can't read attributes of file: " + contentPath.getFileName(), ex);
+        }
+    }
+
+    @Override
+    public byte[] readBytes(Path contentPath) {
+        try {
+            return Files.readAllBytes(contentPath);
+        } catch (IOException ex) {
+            throw new StorageException("Can't read content from file: " + contentPath.getFileName(), ex);
+        }
+    }
+
+    @Override
+    public InputStream open(Path contentPath) throws IOException {
+        return Files.newInputStream(contentPath);
+    }
+
+    /**
+     * Streams the file with {@link FileChannel#transferTo}, a file truncated meanwhile fails the response.
+     */
+    @Override
+    public StreamingOutput stream(Path contentPath) {
+        return output -> {
+            try (FileChannel channel = FileChannel.open(contentPath, StandardOpenOption.READ)) {
+                WritableByteChannel target = Channels.newChannel(output);
+                long size = channel.size();
+                long position = 0;
+                while (position < size) {
+                    long transferred = channel.transferTo(position, size - position, target);
+                    if (transferred <= 0) {
+                        throw new EOFException("File ends before " + size + " bytes: " + contentPath.getFileName());
+                    }
+                    position += transferred;
+                }
+            }
+        };
+    }
+
+    @Override
+    public List<ContentEntry> list(Path contentDirectory) {
+        List<ContentEntry> listed = new ArrayList<>();
+        if (!Files.isDirectory(contentDirectory)) {
+            return listed;
+        }
+        try {
+            Files.walkFileTree(contentDirectory, EnumSet.noneOf(FileVisitOption.class), SEARCH_DEPTH,
+                    new SimpleFileVisitor<>() {
+                        @Override
+                        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                            ContentIndex.toEntry(contentDirectory, file, attrs).ifPresent(listed::add);
+                            return FileVisitResult.CONTINUE;
+                        }
+
+                        @Override
+                        public FileVisitResult visitFileFailed(Path file, IOException ex) {
+                            return FileVisitResult.CONTINUE;
+                        }
+                    });
+        } catch (IOException ex) {
+            throw new StorageException("Can't list content directory: " + contentDirectory, ex);
+        }
+        return listed;
+    }
+
+    @Override
+    public boolean isWatchable() {
+        return true;
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2023 Aleksey Popov <alexnerd.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package alexnerd.content.content.control;
+
+import alexnerd.content.content.control.enums.Lang;
+import alexnerd.content.content.entity.enums.ContentType;
+import alexnerd.content.metrics.HitTracker;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ManagedScheduledExecutorService;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The {@code content.hotset.size} pieces of content requested most often, tracked with a {@link HitTracker}.
+ * It is the only hit tracker, the {@code content_hits} metrics are its top entries.
+ * Every {@code content.hotset.persist.interval} seconds and at shutdown the hot set is written with its counts
+ * to {@code content.hotset.file}, by default {@code <root.storage.dir>.hotset}, one tab separated line per
+ * piece of content. The next start restores it for the {@link WarmUp}. Restored counts are halved, so content
+ * that stopped being requested ages out over a few restarts. A size of 0 turns hit tracking off.
+ */
+@ApplicationScoped
+public class HotSet {
+
+    private static final Logger LOG = Logger.getLogger(HotSet.class.getName());
+
+    private static final String SEPARATOR = "\t";
+
+    @Inject
+    @ConfigProperty(name = "root.storage.dir")
+    String baseDir;
+
+    @Inject
+    @ConfigProperty(name = "content.hotset.size", defaultValue = "100")
+    int size;
+
+    @Inject
+    @ConfigProperty(name = "content.hotset.file")
+    Optional<String> file;
+
+    @Inject
+    @ConfigProperty(name = "content.hotset.persist.interval", defaultValue = "60")
+    private long persistIntervalInSeconds;
+
+    @Resource
+    private ManagedScheduledExecutorService scheduler;
+
+    private HitTracker tracker;
+
+    @PostConstruct
+    public void init() {
+        if (this.size < 0) {
+            throw new IllegalArgumentException("content.hotset.size must not be negative: " + this.size);
+        }
+        if (this.size == 0) {
+            LOG.info("Hot set is disabled");
+            return;
+        }
+        this.tracker = new HitTracker(this.size * 10);
+        this.restore();
+    }
+
+    void onStart(@Observes @Initialized(ApplicationScoped.class) Object ignored) {
+        this.scheduler.scheduleWithFixedDelay(this::save, this.persistIntervalInSeconds, this.persistIntervalInSeconds,
+                TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        this.save();
+    }
+
+    public void hit(ContentKey key) {
+        if (this.tracker == null) {
+            return;
+        }
+        this.tracker.hit(toLine(key));
+    }
+
+    /**
+     * Most requested first, including the content restored from the previous run.
+     */
+    public List<ContentKey> top() {
+        return this.top(this.size);
+    }
+
+    public List<ContentKey> top(int limit) {
+        if (this.tracker == null) {
+            return List.of();
+        }
+        return this.tracker.top(limit).stream()
+                .map(hit -> toKey(hit.key()))
+                .toList();
+    }
+
+    public long count(ContentKey key) {
+        if (this.tracker == null) {
+            return 0;
+        }
+        return this.tracker.count(toLine(key));
+    }
+
+    void save() {
+        if (this.tracker == null) {
+            return;
+        }
+        List<String> lines = this.tracker.top(this.size).stream()
+                .map(hit -> hit.count() + SEPARATOR + hit.key())
+                .toList();
+        Path hotSet = this.getHotSetPath();
+        Path temporary = hotSet.resolveSibling(hotSet.getFileName() + ".tmp");
+        try {
+            Files.write(temporary, lines, StandardCharsets.UTF_8);
+            Files.move(temporary, hotSet, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            LOG.log(Level.WARNING, "Can't write hot set: " + hotSet, ex);
+            try {
+                Files.deleteIfExists(temporary);
+            } catch (IOException ignored) {
+                // nothing more to do
+            }
+        }
+    }
+
+    private void restore() {
+        Path hotSet = this.getHotSetPath();
+        if (!Files.isRegularFile(hotSet)) {
+            return;
+        }
+        try {
+            for (String line : Files.readAllLines(hotSet, StandardCharsets.UTF_8)) {
+                int separator = line.indexOf(SEPARATOR);
+                String key = line.substring(separator + 1);
+                toKey(key); // rejects malformed entries
+                this.tracker.add(key, Math.max(1, Long.parseLong(line.substring(0, separator)) / 2));
+            }
+        } catch (IOException | RuntimeException ex) {
+            LOG.log(Level.WARNING, "Ignoring unreadable hot set: " + hotSet, ex);
+        }
+    }
+
+    Path getHotSetPath() {
+        return Path.of(this.file.orElse(this.baseDir + ".hotset"));
+    }
+
+    private static String toLine(ContentKey key) {
+        return key.lang().name() + SEPARATOR + key.type().name() + SEPARATOR + key.date() + SEPARATOR + key.fileName();
+    }
+
+    private static ContentKey toKey(String line) {
+        String[] fields = line.split(SEPARATOR, 4);
+        if (fields.length != 4) {
+            throw new IllegalArgumentException("Invalid hot set entry: " + line);
+        }
+        return new ContentKey(Lang.valueOf(fields[0]), ContentType.valueOf(fields[1]), fields[2], fields[3]);
+    }
+}
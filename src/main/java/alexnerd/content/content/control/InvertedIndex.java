@@ -0,0 +1,265 @@
+/*
+ * Copyright 2023 Aleksey Popov <alexnerd.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package alexnerd.content.content.control;
+
+import alexnerd.content.content.entity.SearchHit;
+import alexnerd.content.content.entity.SearchResult;
+
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Term to document postings of one content directory, ranked with BM25. A search only walks the postings
+ * of its terms, so it costs the number of matching documents rather than the size of the index. Removed
+ * and replaced documents are only marked, postings are compacted once they make up more than half of
+ * the index.
+ */
+class InvertedIndex {
+
+    private static final double K1 = 1.2;
+
+    private static final double B = 0.75;
+
+    private static final int MIN_COMPACTION = 1024;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Path, Integer> ids = new HashMap<>();
+
+    private final List<Document> documents = new ArrayList<>();
+
+    private final Map<String, Postings> postings = new HashMap<>();
+
+    private long totalLength;
+
+    private int removed;
+
+    /**
+     * Indexes a document, replacing the one indexed for the same path.
+     */
+    void put(Document document, Map<String, Integer> frequencies) {
+        this.lock.writeLock().lock();
+        try {
+            this.removeIndexed(document.path());
+            int id = this.documents.size();
+            this.documents.add(document);
+            this.ids.put(document.path(), id);
+            this.totalLength += document.length();
+            frequencies.forEach((term, frequency) ->
+                    this.postings.computeIfAbsent(term, t -> new Postings()).add(id, frequency));
+            this.compactIfSparse();
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    void remove(Path path) {
+        this.lock.writeLock().lock();
+        try {
+            this.removeIndexed(path);
+            this.compactIfSparse();
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    Optional<FileTime> lastModified(Path path) {
+        this.lock.readLock().lock();
+        try {
+            Integer id = this.ids.get(path);
+            return id == null ? Optional.empty() : Optional.of(this.documents.get(id).lastModified());
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    List<Path> paths() {
+        this.lock.readLock().lock();
+        try {
+            return List.copyOf(this.ids.keySet());
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    int size() {
+        this.lock.readLock().lock();
+        try {
+            return this.ids.size();
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Document slots including the removed ones not compacted yet.
+     */
+    int slots() {
+        this.lock.readLock().lock();
+        try {
+            return this.documents.size();
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    SearchResult search(Collection<String> terms, int offset, int limit) {
+        this.lock.readLock().lock();
+        try {
+            int count = this.ids.size();
+            if (count == 0) {
+                return new SearchResult(0, List.of());
+            }
+            double averageLength = (double) this.totalLength / count;
+            Map<Integer, Double> scores = new HashMap<>();
+            for (String term : new LinkedHashSet<>(terms)) {
+                Postings found = this.postings.get(term);
+                if (found == null) {
+                    continue;
+                }
+                int frequency = 0;
+                for (int i = 0; i < found.size; i++) {
+                    if (this.documents.get(found.documents[i]) != null) {
+                        frequency++;
+                    }
+                }
+                double idf = Math.log(1 + (count - frequency + 0.5) / (frequency + 0.5));
+                for (int i = 0; i < found.size; i++) {
+                    Document document = this.documents.get(found.documents[i]);
+                    if (document == null) {
+                        continue;
+                    }
+                    int tf = found.frequencies[i];
+                    double norm = K1 * (1 - B + B * document.length() / averageLength);
+                    scores.merge(found.documents[i], idf * tf * (K1 + 1) / (tf + norm), Double::sum);
+                }
+            }
+            return this.top(scores, offset, limit);
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    private SearchResult top(Map<Integer, Double> scores, int offset, int limit) {
+        int wanted = offset + limit;
+        PriorityQueue<Map.Entry<Integer, Double>> best = new PriorityQueue<>(Math.max(1, wanted),
+                Map.Entry.comparingByValue());
+        int total = 0;
+        for (Map.Entry<Integer, Double> scored : scores.entrySet()) {
+            if (scored.getValue() <= 0) {
+                continue;
+            }
+            total++;
+            if (best.size() < wanted) {
+                best.add(scored);
+            } else if (wanted > 0 && scored.getValue() > best.peek().getValue()) {
+                best.poll();
+                best.add(scored);
+            }
+        }
+        List<Map.Entry<Integer, Double>> ranked = new ArrayList<>(best);
+        ranked.sort(Map.Entry.<Integer, Double>comparingByValue().reversed());
+        List<SearchHit> hits = ranked.stream()
+                .skip(offset)
+                .map(scored -> {
+                    Document document = this.documents.get(scored.getKey());
+                    return new SearchHit(document.date(), document.title(), document.rubric(),
+                            scored.getValue());
+                })
+                .toList();
+        return new SearchResult(total, hits);
+    }
+
+    private void removeIndexed(Path path) {
+        Integer id = this.ids.remove(path);
+        if (id != null) {
+            this.totalLength -= this.documents.get(id).length();
+            this.documents.set(id, null);
+            this.removed++;
+        }
+    }
+
+    private void compactIfSparse() {
+        if (this.removed > MIN_COMPACTION && this.removed > this.ids.size()) {
+            this.compact();
+        }
+    }
+
+    private void compact() {
+        int[] renumbered = new int[this.documents.size()];
+        List<Document> live = new ArrayList<>(this.ids.size());
+        for (int id = 0; id < this.documents.size(); id++) {
+            Document document = this.documents.get(id);
+            renumbered[id] = document == null ? -1 : live.size();
+            if (document != null) {
+                this.ids.put(document.path(), live.size());
+                live.add(document);
+            }
+        }
+        this.postings.values().removeIf(found -> found.compact(renumbered) == 0);
+        this.documents.clear();
+        this.documents.addAll(live);
+        this.removed = 0;
+    }
+
+    record Document(Path path, FileTime lastModified, String date, String title, String rubric, int length) {
+    }
+
+    private static final class Postings {
+
+        private int[] documents = new int[2];
+
+        private int[] frequencies = new int[2];
+
+        private int size;
+
+        void add(int document, int frequency) {
+            if (this.size == this.documents.length) {
+                this.documents = Arrays.copyOf(this.documents, this.size * 2);
+                this.frequencies = Arrays.copyOf(this.frequencies, this.size * 2);
+            }
+            this.documents[this.size] = document;
+            this.frequencies[this.size] = frequency;
+            this.size++;
+        }
+
+        int compact(int[] renumbered) {
+            int kept = 0;
+            for (int i = 0; i < this.size; i++) {
+                int document = renumbered[this.documents[i]];
+                if (document >= 0) {
+                    this.documents[kept] = document;
+                    this.frequencies[kept] = this.frequencies[i];
+                    kept++;
+                }
+            }
+            this.size = kept;
+            return kept;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2023 Aleksey Popov <alexnerd.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package alexnerd.content.content.control;
+
+import alexnerd.content.metrics.ContentMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Paths recently found missing, so repeated requests of dead links don't reach the disk. At most
+ * {@code content.missing.cache.size} paths are kept, the oldest is dropped first. A path is forgotten
+ * as soon as a {@link ContentChange} affects it, and after {@code content.missing.cache.ttl} seconds
+ * in case changes are not watched.
+ */
+@ApplicationScoped
+public class MissingContentCache {
+
+    @Inject
+    @ConfigProperty(name = "content.missing.cache.size", defaultValue = "10000")
+    int maxEntries;
+
+    @Inject
+    @ConfigProperty(name = "content.missing.cache.ttl", defaultValue = "60")
+    long ttlInSeconds;
+
+    @Inject
+    private ContentMetrics contentMetrics;
+
+    private final Map<Path, Long> missing = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Path, Long> eldest) {
+            return this.size() > maxEntries;
+        }
+    };
+
+    @PostConstruct
+    public void init() {
+        this.contentMetrics.registerMissingCacheGauges(this::size);
+    }
+
+    public boolean isMissing(Path path) {
+        boolean known;
+        synchronized (this) {
+            Long expiresAt = this.missing.get(path);
+            known = expiresAt != null && expiresAt - System.nanoTime() > 0;
+            if (expiresAt != null && !known) {
+                this.missing.remove(path);
+            }
+        }
+        if (known) {
+            this.contentMetrics.increaseMissingCacheHitCounter();
+        } else {
+            this.contentMetrics.increaseMissingCacheMissCounter();
+        }
+        return known;
+    }
+
+    public synchronized void markMissing(Path path) {
+        this.missing.remove(path);
+        this.missing.put(path, System.nanoTime() + TimeUnit.SECONDS.toNanos(this.ttlInSeconds));
+    }
+
+    public synchronized int size() {
+        return this.missing.size();
+    }
+
+    synchronized void onChange(@Observes ContentChange change) {
+        this.missing.keySet().removeIf(change::affects);
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2023 Aleksey Popov <alexnerd.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package alexnerd.content.content.control;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+/**
+ * Fans blocking reads out to virtual threads. At most {@code content.read.parallelism} reads run at
+ * once across all requests. Results keep the order of the input, and the first failure fails the
+ * whole batch without waiting for the rest; reads that have not started by then are skipped.
+ * Background work passes its own {@link Semaphore} so it never takes permits from requests.
+ */
+@ApplicationScoped
+public class ParallelReader {
+
+    @Inject
+    @ConfigProperty(name = "content.read.parallelism", defaultValue = "32")
+    int parallelism;
+
+    private ExecutorService executor;
+
+    private Semaphore permits;
+
+    @PostConstruct
+    public void init() {
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.permits = new Semaphore(this.parallelism);
+    }
+
+    @PreDestroy
+    public void close() {
+        this.executor.shutdown();
+    }
+
+    public <T, R> List<R> map(List<T> items, Function<T, R> read) {
+        return this.map(items, read, this.permits);
+    }
+
+    <T, R> List<R> map(List<T> items, Function<T, R> read, Semaphore permits) {
+        if (items.size() < 2) {
+            return items.stream().map(read).toList();
+        }
+        CompletableFuture<Void> failed = new CompletableFuture<>();
+        List<CompletableFuture<R>> reads = new ArrayList<>(items.size());
+        for (T item : items) {
+            CompletableFuture<R> future = CompletableFuture.supplyAsync(() -> read(item, read, permits, failed), this.executor);
+            future.whenComplete((result, ex) -> {
+                if (ex != null) {
+                    failed.completeExceptionally(ex);
+                }
+            });
+            reads.add(future);
+        }
+        try {
+            CompletableFuture.anyOf(CompletableFuture.allOf(reads.toArray(CompletableFuture[]::new)), failed).get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            failed.cancel(false);
+            throw new IllegalStateException("Interrupted while reading content", ex);
+        } catch (ExecutionException ex) {
+            reads.forEach(future -> future.cancel(false));
+            throw unwrap(ex.getCause());
+        }
+        return reads.stream().map(CompletableFuture::join).toList();
+    }
+
+    private static <T, R> R read(T item, Function<T, R> read, Semaphore permits, CompletableFuture<Void> failed) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(ex);
+        }
+        try {
+            if (failed.isDone()) {
+                throw new CompletionException(new IllegalStateException("Batch already failed"));
+            }
+            return read.apply(item);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private static RuntimeException unwrap(Throwable cause) {
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause instanceof RuntimeException runtime ? runtime : new IllegalStateException(cause);
+    }
+}
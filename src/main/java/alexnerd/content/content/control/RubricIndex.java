@@ -0,0 +1,79 @@
+/*
+ * Copyright 2023 Aleksey Popov <alexnerd.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package alexnerd.content.content.control;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Entries of one content directory grouped by rubric, case insensitive, each group ordered by
+ * {@link ContentEntry#NEWEST_FIRST}.
+ */
+class RubricIndex {
+
+    private final Map<String, NavigableSet<ContentEntry>> byRubric = new ConcurrentHashMap<>();
+
+    private final Map<Path, Indexed> byPath = new ConcurrentHashMap<>();
+
+    synchronized void put(ContentEntry entry, String rubric) {
+        this.remove(entry.path());
+        if (rubric == null || rubric.isBlank()) {
+            return;
+        }
+        String key = key(rubric);
+        this.byRubric.computeIfAbsent(key, k -> new ConcurrentSkipListSet<>(ContentEntry.NEWEST_FIRST)).add(entry);
+        this.byPath.put(entry.path(), new Indexed(key, entry));
+    }
+
+    synchronized void remove(Path path) {
+        Indexed indexed = this.byPath.remove(path);
+        if (indexed == null) {
+            return;
+        }
+        NavigableSet<ContentEntry> entries = this.byRubric.get(indexed.rubric());
+        entries.remove(indexed.entry());
+        if (entries.isEmpty()) {
+            this.byRubric.remove(indexed.rubric());
+        }
+    }
+
+    /**
+     * Up to {@code size} entries of the rubric following {@code after}, from the newest one if it is {@code null}.
+     */
+    List<ContentEntry> page(String rubric, ContentCursor after, int size) {
+        NavigableSet<ContentEntry> entries = this.byRubric.get(key(rubric));
+        if (entries == null) {
+            return List.of();
+        }
+        NavigableSet<ContentEntry> tail = after == null ? entries : entries.tailSet(after.toProbe(), false);
+        return tail.stream()
+                .limit(size)
+                .toList();
+    }
+
+    private static String key(String rubric) {
+        return rubric.strip().toLowerCase(Locale.ROOT);
+    }
+
+    private record Indexed(String rubric, ContentEntry entry) {
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2023 Aleksey Popov <alexnerd.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package alexnerd.content.content.control;
+
+import alexnerd.content.content.control.adapters.JsonMapper;
+import alexnerd.content.content.control.adapters.TextAnalyzer;
+import alexnerd.content.content.control.enums.Lang;
+import alexnerd.content.content.entity.Content;
+import alexnerd.content.content.entity.SearchResult;
+import alexnerd.content.content.entity.enums.ContentType;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ManagedExecutorService;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Full text search over {@code title}, {@code rubric} and {@code content}, one {@link InvertedIndex}
+ * per content directory, and a {@link RubricIndex} and the {@link TeaserIndex} filled from the same
+ * read. The indexes follow the {@link ContentIndex}: every {@link ContentChange} is applied in the
+ * background by indexing files that are new or modified under the changed path and dropping the ones
+ * that are gone, so a full rescan only reads what actually changed. Indexing reads take at most
+ * {@code content.search.parallelism} permits of their own, so a rescan never queues requests.
+ */
+@ApplicationScoped
+public class SearchIndex {
+
+    private static final Logger LOG = Logger.getLogger(SearchIndex.class.getName());
+
+    private static final int TITLE_WEIGHT = 3;
+
+    private static final int RUBRIC_WEIGHT = 2;
+
+    private static final int BATCH_SIZE = 256;
+
+    @Inject
+    private ContentIndex index;
+
+    @Inject
+    private Storage storage;
+
+    @Inject
+    private ParallelReader reader;
+
+    @Inject
+    private TeaserIndex teasers;
+
+    @Resource
+    private ManagedExecutorService executor;
+
+    @Inject
+    @ConfigProperty(name = "content.search.parallelism", defaultValue = "4")
+    int parallelism;
+
+    private Semaphore permits;
+
+    private final Map<SearchKey, Indexes> indexes = new ConcurrentHashMap<>();
+
+    private final Queue<Path> pending = new ConcurrentLinkedQueue<>();
+
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    @PostConstruct
+    public void init() {
+        this.permits = new Semaphore(this.parallelism);
+    }
+
+    public SearchResult search(Lang lang, ContentType type, String query, int offset, int limit) {
+        List<String> terms = TextAnalyzer.terms(query);
+        if (terms.isEmpty()) {
+            return new SearchResult(0, List.of());
+        }
+        Indexes found = this.indexes.get(new SearchKey(lang, type.getBaseDir()));
+        return found == null ? new SearchResult(0, List.of()) : found.text().search(terms, offset, limit);
+    }
+
+    public List<ContentEntry> byRubric(Lang lang, ContentType type, String rubric, ContentCursor after,
+                                       int size) {
+        Indexes found = this.indexes.get(new SearchKey(lang, type.getBaseDir()));
+        return found == null ? List.of() : found.rubrics().page(rubric, after, size);
+    }
+
+    void onChange(@Observes ContentChange change) {
+        this.pending.add(change.path());
+        this.drain();
+    }
+
+    private void drain() {
+        if (!this.draining.compareAndSet(false, true)) {
+            return;
+        }
+        this.executor.execute(() -> {
+            try {
+                Path changed;
+                while ((changed = this.pending.poll()) != null) {
+                    this.sync(changed);
+                }
+            } catch (RuntimeException ex) {
+                LOG.log(Level.WARNING, "Can't update search index", ex);
+            } finally {
+                this.draining.set(false);
+            }
+            if (!this.pending.isEmpty()) {
+                this.drain();
+            }
+        });
+    }
+
+    private void sync(Path changed) {
+        Path root = this.storage.getStorageDirectoryPath();
+        for (Lang lang : Lang.values()) {
+            for (ContentType type : List.of(ContentType.POST, ContentType.ARTICLE)) {
+                Path directory = root.resolve(lang.name()).resolve(type.getBaseDir());
+                if (directory.startsWith(changed) || changed.startsWith(directory)) {
+                    Path scope = directory.startsWith(changed) ? directory : changed;
+                    SearchKey key = new SearchKey(lang, type.getBaseDir());
+                    Indexes indexes = this.indexes.computeIfAbsent(key,
+                            k -> new Indexes(new InvertedIndex(), new RubricIndex()));
+                    this.sync(key, indexes, this.index.entries(lang, type), scope);
+                }
+            }
+        }
+    }
+
+    private void sync(SearchKey key, Indexes indexes, Set<ContentEntry> entries, Path scope) {
+        InvertedIndex inverted = indexes.text();
+        Map<Path, ContentEntry> current = new HashMap<>();
+        for (ContentEntry entry : entries) {
+            if (entry.path().startsWith(scope)) {
+                current.put(entry.path(), entry);
+            }
+        }
+        for (Path indexed : inverted.paths()) {
+            if (indexed.startsWith(scope) && !current.containsKey(indexed)) {
+                inverted.remove(indexed);
+                indexes.rubrics().remove(indexed);
+                if (key.hasTeasers()) {
+                    this.teasers.remove(key.lang(), indexed);
+                }
+            }
+        }
+        List<ContentEntry> outdated = current.values().stream()
+                .filter(entry -> !inverted.lastModified(entry.path())
+                        .map(entry.lastModified()::equals)
+                        .orElse(false))
+                .toList();
+        for (int from = 0; from < outdated.size(); from += BATCH_SIZE) {
+            List<ContentEntry> batch = outdated.subList(from, Math.min(outdated.size(), from + BATCH_SIZE));
+            this.reader.map(batch, entry -> this.read(entry).map(content -> Map.entry(entry, content)),
+                            this.permits)
+                    .forEach(read -> read.ifPresent(indexed ->
+                            this.put(key, indexes, indexed.getKey(), indexed.getValue())));
+        }
+    }
+
+    private Optional<Content> read(ContentEntry entry) {
+        try {
+            return Optional.of(JsonMapper.load(this.storage.readContent(entry.path())));
+        } catch (RuntimeException ex) {
+            LOG.log(Level.FINE, "Can't index " + entry.path(), ex);
+            return Optional.empty();
+        }
+    }
+
+    private void put(SearchKey key, Indexes indexes, ContentEntry entry, Content content) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        int length = count(frequencies, content.title(), TITLE_WEIGHT)
+                + count(frequencies, content.rubric(), RUBRIC_WEIGHT)
+                + count(frequencies, content.content(), 1);
+        indexes.text().put(new InvertedIndex.Document(entry.path(), entry.lastModified(), entry.date(),
+                content.title(), content.rubric(), length), frequencies);
+        indexes.rubrics().put(entry, content.rubric());
+        if (key.hasTeasers()) {
+            this.teasers.put(key.lang(), entry, content);
+        }
+    }
+
+    private static int count(Map<String, Integer> frequencies, String text, int weight) {
+        List<String> terms = TextAnalyzer.terms(text);
+        terms.forEach(term -> frequencies.merge(term, weight, Integer::sum));
+        return terms.size() * weight;
+    }
+
+    private record SearchKey(Lang lang, String baseDir) {
+
+        boolean hasTeasers() {
+            return this.baseDir.equals(ContentType.LAST_ARTICLES.getBaseDir());
+        }
+    }
+
+    private record Indexes(InvertedIndex text, RubricIndex rubrics) {
+    }
+}
@@ -0,0 +1,284 @@
+/*
+ * Copyright 2023 Aleksey Popov <alexnerd.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package alexnerd.content.content.control;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Typed;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.StreamingOutput;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.EOFException;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Content read from the packs written by {@link SegmentPacker}, see {@link SegmentFiles} for the layout.
+ * The index of a pack is held in memory and every segment is kept open, so looking a file up is a
+ * single map probe and reading it a single positional read, no matter how many files there are.
+ * <p>
+ * A pack is loaded on first access and reloaded by {@link #list(Path)} once its index file was replaced,
+ * which happens on every periodic rescan of the {@link ContentIndex}. Segments are append only, so
+ * the open channels stay valid across repacks.
+ */
+@ApplicationScoped
+@Typed(SegmentBackend.class)
+public class SegmentBackend implements StorageBackend {
+
+    private static final Logger LOG = Logger.getLogger(SegmentBackend.class.getName());
+
+    @Inject
+    @ConfigProperty(name = "root.storage.dir")
+    String baseDir;
+
+    private Path storageDirectoryPath;
+
+    private final Map<Path, Pack> packs = new ConcurrentHashMap<>();
+
+    private final Map<SegmentKey, FileChannel> segments = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        this.storageDirectoryPath = Path.of(baseDir);
+    }
+
+    @PreDestroy
+    public void stop() {
+        for (FileChannel channel : this.segments.values()) {
+            try {
+                channel.close();
+            } catch (IOException ex) {
+                LOG.log(Level.FINE, "Can't close segment", ex);
+            }
+        }
+        this.segments.clear();
+    }
+
+    @Override
+    public BasicFileAttributes getAttributes(Path contentPath) throws FileNotFoundException {
+        return this.pack(contentPath).find(contentPath);
+    }
+
+    @Override
+    public byte[] readBytes(Path contentPath) {
+        try {
+            Pack pack = this.pack(contentPath);
+            SegmentFiles.Record record = pack.find(contentPath);
+            ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(record.size()));
+            FileChannel channel = this.channel(pack, record.segment());
+            try {
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, record.offset() + buffer.position()) < 0) {
+                        throw new EOFException("Segment ends before " + record.path());
+                    }
+                }
+            } catch (ClosedChannelException ex) {
+                // closed by an interrupted reader, the next read opens the segment again
+                this.segments.remove(new SegmentKey(pack.directory(), record.segment()), channel);
+                throw ex;
+            }
+            return buffer.array();
+        } catch (IOException ex) {
+            throw new StorageException("Can't read content from file: " + contentPath.getFileName(), ex);
+        }
+    }
+
+    @Override
+    public InputStream open(Path contentPath) throws IOException {
+        Pack pack = this.pack(contentPath);
+        SegmentFiles.Record record = pack.find(contentPath);
+        return new SegmentInputStream(this.channel(pack, record.segment()), record.offset(), record.offset() + record.size());
+    }
+
+    /**
+     * Streams the file's range of the segment with {@link FileChannel#transferTo}.
+     */
+    @Override
+    public StreamingOutput stream(Path contentPath) {
+        return output -> {
+            Pack pack = this.pack(contentPath);
+            SegmentFiles.Record record = pack.find(contentPath);
+            FileChannel channel = this.channel(pack, record.segment());
+            WritableByteChannel target = Channels.newChannel(output);
+            long position = 0;
+            while (position < record.size()) {
+                long transferred = channel.transferTo(record.offset() + position, record.size() - position, target);
+                if (transferred <= 0) {
+                    throw new EOFException("Segment ends before " + record.path());
+                }
+                position += transferred;
+            }
+        };
+    }
+
+    @Override
+    public List<ContentEntry> list(Path contentDirectory) {
+        Pack pack = this.packs.compute(contentDirectory, (directory, current) ->
+                current == null || !current.indexModified().equals(this.indexModified(directory))
+                        ? this.load(directory)
+                        : current);
+        return pack.records().entrySet().stream()
+                .map(entry -> ContentIndex.toEntry(contentDirectory, entry.getKey(), entry.getValue()))
+                .flatMap(Optional::stream)
+                .toList();
+    }
+
+    @Override
+    public boolean isWatchable() {
+        return false;
+    }
+
+    /**
+     * The pack of {@code root/lang/baseDir/yyyy/m/d/name.json}.
+     */
+    private Pack pack(Path contentPath) throws FileNotFoundException {
+        Path directory = contentPath;
+        for (int i = 0; i < 4 && directory != null; i++) {
+            directory = directory.getParent();
+        }
+        if (directory == null || directory.getParent() == null
+                || !this.storageDirectoryPath.equals(directory.getParent().getParent())) {
+            throw new FileNotFoundException("Can't fetch content: " + contentPath.getFileName());
+        }
+        return this.packs.computeIfAbsent(directory, this::load);
+    }
+
+    private Pack load(Path contentDirectory) {
+        Path indexFile = this.indexFile(contentDirectory);
+        FileTime indexModified = this.indexModified(contentDirectory);
+        try {
+            Map<Path, SegmentFiles.Record> records = new HashMap<>();
+            for (SegmentFiles.Record record : SegmentFiles.read(indexFile).values()) {
+                records.put(contentDirectory.resolve(record.path()), record);
+            }
+            return new Pack(contentDirectory, indexModified, records);
+        } catch (NoSuchFileException ex) {
+            return new Pack(contentDirectory, indexModified, Map.of());
+        } catch (IOException ex) {
+            throw new StorageException("Can't read segment index: " + indexFile, ex);
+        }
+    }
+
+    private FileTime indexModified(Path contentDirectory) {
+        try {
+            return Files.getLastModifiedTime(this.indexFile(contentDirectory));
+        } catch (NoSuchFileException ex) {
+            return FileTime.fromMillis(0);
+        } catch (IOException ex) {
+            throw new StorageException("Can't read segment index of: " + contentDirectory, ex);
+        }
+    }
+
+    private Path indexFile(Path contentDirectory) {
+        return SegmentFiles.indexFile(this.storageDirectoryPath,
+                contentDirectory.getParent().getFileName().toString(), contentDirectory.getFileName().toString());
+    }
+
+    private FileChannel channel(Pack pack, int segment) throws IOException {
+        SegmentKey key = new SegmentKey(pack.directory(), segment);
+        FileChannel channel = this.segments.get(key);
+        if (channel != null) {
+            return channel;
+        }
+        Path file = SegmentFiles.segmentFile(this.storageDirectoryPath,
+                pack.directory().getParent().getFileName().toString(), pack.directory().getFileName().toString(), segment);
+        FileChannel opened = FileChannel.open(file, StandardOpenOption.READ);
+        channel = this.segments.putIfAbsent(key, opened);
+        if (channel == null) {
+            return opened;
+        }
+        opened.close();
+        return channel;
+    }
+
+    private record Pack(Path directory, FileTime indexModified, Map<Path, SegmentFiles.Record> records) {
+
+        SegmentFiles.Record find(Path contentPath) throws FileNotFoundException {
+            SegmentFiles.Record record = this.records.get(contentPath);
+            if (record == null) {
+                throw new FileNotFoundException("Can't fetch content: " + contentPath.getFileName());
+            }
+            return record;
+        }
+    }
+
+    private record SegmentKey(Path directory, int segment) {
+    }
+
+    /**
+     * One file's range of a segment, read with positional reads so the shared channel keeps no state.
+     */
+    private static class SegmentInputStream extends InputStream {
+
+        private final FileChannel channel;
+
+        private final long end;
+
+        private long position;
+
+        SegmentInputStream(FileChannel channel, long start, long end) {
+            this.channel = channel;
+            this.position = start;
+            this.end = end;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return this.read(single, 0, 1) < 0 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            Objects.checkFromIndexSize(offset, length, buffer.length);
+            if (length == 0) {
+                return 0;
+            }
+            if (this.position >= this.end) {
+                return -1;
+            }
+            int read = this.channel.read(ByteBuffer.wrap(buffer, offset, (int) Math.min(length, this.end - this.position)), this.position);
+            if (read < 0) {
+                throw new EOFException("Segment ends at " + this.position);
+            }
+            this.position += read;
+            return read;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2023 Aleksey Popov <alexnerd.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package alexnerd.content.content.control;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Layout of the packs shared by {@link SegmentPacker} and {@link SegmentBackend}. Every {@code lang/baseDir}
+ * directory becomes one pack in the storage root:
+ * <ul>
+ *     <li>{@code <LANG>-<baseDir>-NNNNN.seg}, the files' contents back to back. Segments are only ever
+ *     appended to, a new one is started once {@link #MAX_SEGMENT_SIZE} would be exceeded.</li>
+ *     <li>{@code <LANG>-<baseDir>.idx}, every live file with its path relative to the content directory,
+ *     segment, offset, size, creation and modification time. It is replaced as a whole with an atomic move.</li>
+ * </ul>
+ */
+interface SegmentFiles {
+
+    int MAGIC = 0x53454749;
+
+    int FORMAT_VERSION = 1;
+
+    long MAX_SEGMENT_SIZE = 1L << 30;
+
+    static Path indexFile(Path root, String lang, String baseDir) {
+        return root.resolve(lang + "-" + baseDir + ".idx");
+    }
+
+    static Path segmentFile(Path root, String lang, String baseDir, int segment) {
+        return root.resolve(String.format("%s-%s-%05d.seg", lang, baseDir, segment));
+    }
+
+    /**
+     * Records keyed by their relative path, in the order they were written.
+     */
+    static Map<String, Record> read(Path indexFile) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                throw new IOException("Unknown segment index format: " + indexFile);
+            }
+            int count = in.readInt();
+            Map<String, Record> records = new LinkedHashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                Record record = new Record(in.readUTF(), in.readInt(), in.readLong(), in.readLong(),
+                        readTime(in), readTime(in));
+                records.put(record.path(), record);
+            }
+            return records;
+        }
+    }
+
+    static void write(Path indexFile, Collection<Record> records) throws IOException {
+        Path temporary = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(records.size());
+            for (Record record : records) {
+                out.writeUTF(record.path());
+                out.writeInt(record.segment());
+                out.writeLong(record.offset());
+                out.writeLong(record.size());
+                writeTime(out, record.creationTime());
+                writeTime(out, record.lastModifiedTime());
+            }
+        }
+        Files.move(temporary, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static FileTime readTime(DataInputStream in) throws IOException {
+        return FileTime.from(in.readLong(), TimeUnit.NANOSECONDS);
+    }
+
+    private static void writeTime(DataOutputStream out, FileTime time) throws IOException {
+        out.writeLong(time.to(TimeUnit.NANOSECONDS));
+    }
+
+    /**
+     * Location of a packed file, doubling as its attributes.
+     *
+     * @param path relative to the content directory, {@code yyyy/m/d/name.json}
+     */
+    record Record(String path, int segment, long offset, long size,
+                  FileTime creationTime, FileTime lastModifiedTime) implements BasicFileAttributes {
+
+        @Override
+        public FileTime lastAccessTime() {
+            return this.lastModifiedTime;
+        }
+
+        @Override
+        public boolean isRegularFile() {
+            return true;
+        }
+
+        @Override
+        public boolean isDirectory() {
+            return false;
+        }
+
+        @Override
+        public boolean isSymbolicLink() {
+            return false;
+        }
+
+        @Override
+        public boolean isOther() {
+            return false;
+        }
+
+        @Override
+        public Object fileKey() {
+            return null;
+        }
+    }
+}
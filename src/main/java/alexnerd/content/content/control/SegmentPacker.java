@@ -0,0 +1,194 @@
+/*
+ * Copyright 2023 Aleksey Popov <alexnerd.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package alexnerd.content.content.control;
+
+import alexnerd.content.content.control.enums.Lang;
+import alexnerd.content.content.entity.enums.ContentType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Offline tool packing a {@code lang/baseDir/yyyy/m/d} tree into the segments read by {@link SegmentBackend}:
+ * <pre>
+ * java -cp target/content-classes.jar alexnerd.content.content.control.SegmentPacker &lt;source root&gt; &lt;target root&gt;
+ * </pre>
+ * Packing is incremental. Files whose size and modification time match the existing index are kept where
+ * they are, new and changed files are appended to the last segment and files gone from the source are
+ * dropped from the index. Segments are flushed before the index is replaced, so a running service
+ * sees either the previous pack or the new one. The packer runs outside the container and only uses the JDK.
+ */
+public class SegmentPacker {
+
+    /**
+     * year, month, day, file
+     */
+    private final static int SEARCH_DEPTH = 4;
+
+    private final static String FILE_EXTENSION = ".json";
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: SegmentPacker <source root> <target root>");
+            System.exit(1);
+        }
+        Path source = Path.of(args[0]);
+        Path target = Path.of(args[1]);
+        Files.createDirectories(target);
+        for (Packed packed : pack(source, target)) {
+            System.out.println(packed);
+        }
+    }
+
+    static List<Packed> pack(Path source, Path target) throws IOException {
+        List<String> baseDirs = Arrays.stream(ContentType.values()).map(ContentType::getBaseDir).distinct().toList();
+        List<Packed> packed = new ArrayList<>();
+        for (Lang lang : Lang.values()) {
+            for (String baseDir : baseDirs) {
+                Path contentDirectory = source.resolve(lang.name()).resolve(baseDir);
+                if (Files.isDirectory(contentDirectory)) {
+                    packed.add(pack(contentDirectory, target, lang.name(), baseDir));
+                }
+            }
+        }
+        return packed;
+    }
+
+    private static Packed pack(Path contentDirectory, Path target, String lang, String baseDir) throws IOException {
+        Path indexFile = SegmentFiles.indexFile(target, lang, baseDir);
+        Map<String, SegmentFiles.Record> existing;
+        try {
+            existing = SegmentFiles.read(indexFile);
+        } catch (NoSuchFileException ex) {
+            existing = Map.of();
+        }
+        int segment = existing.values().stream().mapToInt(SegmentFiles.Record::segment).max().orElse(0);
+        Map<String, SegmentFiles.Record> records = new LinkedHashMap<>();
+        int kept = 0;
+        int appended = 0;
+        FileChannel writer = null;
+        try {
+            for (SourceFile file : list(contentDirectory)) {
+                SegmentFiles.Record previous = existing.get(file.relative());
+                if (previous != null && previous.size() == file.attributes().size()
+                        && previous.lastModifiedTime().equals(file.attributes().lastModifiedTime())) {
+                    records.put(file.relative(), previous);
+                    kept++;
+                    continue;
+                }
+                byte[] content = Files.readAllBytes(file.path());
+                if (writer == null) {
+                    writer = open(target, lang, baseDir, segment);
+                }
+                if (writer.size() > 0 && writer.size() + content.length > SegmentFiles.MAX_SEGMENT_SIZE) {
+                    writer.force(true);
+                    writer.close();
+                    writer = open(target, lang, baseDir, ++segment);
+                }
+                long offset = writer.size();
+                ByteBuffer buffer = ByteBuffer.wrap(content);
+                while (buffer.hasRemaining()) {
+                    writer.write(buffer, offset + buffer.position());
+                }
+                records.put(file.relative(), new SegmentFiles.Record(file.relative(), segment, offset, content.length,
+                        file.attributes().creationTime(), file.attributes().lastModifiedTime()));
+                appended++;
+            }
+            if (writer != null) {
+                writer.force(true);
+            }
+        } finally {
+            if (writer != null) {
+                writer.close();
+            }
+        }
+        SegmentFiles.write(indexFile, records.values());
+        long dropped = existing.keySet().stream().filter(relative -> !records.containsKey(relative)).count();
+        return new Packed(lang + "-" + baseDir, kept, appended, dropped);
+    }
+
+    /**
+     * Content files of the {@code yyyy/m/d} tree below {@code contentDirectory}, ordered by their relative path.
+     */
+    private static List<SourceFile> list(Path contentDirectory) throws IOException {
+        List<SourceFile> files = new ArrayList<>();
+        Files.walkFileTree(contentDirectory, EnumSet.noneOf(FileVisitOption.class), SEARCH_DEPTH,
+                new SimpleFileVisitor<>() {
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                        Path relative = contentDirectory.relativize(file);
+                        if (attrs.isRegularFile() && relative.getNameCount() == SEARCH_DEPTH
+                                && file.getFileName().toString().endsWith(FILE_EXTENSION)
+                                && isNumber(relative.getName(0)) && isNumber(relative.getName(1))
+                                && isNumber(relative.getName(2))) {
+                            files.add(new SourceFile(toRelative(relative), file, attrs));
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+        files.sort(Comparator.comparing(SourceFile::relative));
+        return files;
+    }
+
+    private static boolean isNumber(Path name) {
+        String value = name.toString();
+        return !value.isEmpty() && value.chars().allMatch(Character::isDigit);
+    }
+
+    private static FileChannel open(Path target, String lang, String baseDir, int segment) throws IOException {
+        return FileChannel.open(SegmentFiles.segmentFile(target, lang, baseDir, segment),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    }
+
+    private static String toRelative(Path relative) {
+        StringBuilder joined = new StringBuilder();
+        for (Path name : relative) {
+            if (!joined.isEmpty()) {
+                joined.append('/');
+            }
+            joined.append(name);
+        }
+        return joined.toString();
+    }
+
+    private record SourceFile(String relative, Path path, BasicFileAttributes attributes) {
+    }
+
+    record Packed(String pack, int kept, int appended, long dropped) {
+
+        @Override
+        public String toString() {
+            return this.pack + ": " + this.kept + " kept, " + this.appended + " appended, " + this.dropped + " dropped";
+        }
+    }
+}
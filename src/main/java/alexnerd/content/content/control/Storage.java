@@ -20,27 +20,35 @@ import alexnerd.content.content.control.enums.Lang;
 import alexnerd.content.content.entity.enums.ContentType;
 import jakarta.annotation.PostConstruct;
 import jakarta.inject.Inject;
+import jakarta.ws.rs.core.StreamingOutput;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.attribute.BasicFileAttributes;
-import java.nio.file.attribute.FileTime;
-import java.util.ArrayList;
+import java.time.LocalDate;
 import java.util.List;
-import java.util.stream.Stream;
 
+/**
+ * Content resolved to its path under {@code root.storage.dir}, listed through the {@link ContentIndex}
+ * and read through the configured {@link StorageBackend}.
+ */
 public class Storage {
 
     @Inject
     @ConfigProperty(name = "root.storage.dir")
     private String baseDir;
 
-    private Path storageDirectoryPath;
+    @Inject
+    private ContentIndex index;
+
+    @Inject
+    private StorageBackend backend;
 
-    private final static int SEARCH_DEPTH = 3;
+    private Path storageDirectoryPath;
 
     private final static String FILE_EXTENSION = ".json";
 
@@ -53,89 +61,43 @@ public class Storage {
         return this.storageDirectoryPath;
     }
 
-    String getContent(Lang lang, ContentType type, String date, String fileName) throws FileNotFoundException {
-        Path contentPath = this.constructContentPath(lang, type, date, fileName);
-
-        if (Files.notExists(contentPath) || !Files.isRegularFile(contentPath)) {
-            throw new FileNotFoundException("Can't fetch content: " + fileName);
-        }
-
-        return this.readContent(contentPath);
+    BasicFileAttributes getAttributes(Path contentPath) throws FileNotFoundException {
+        return this.backend.getAttributes(contentPath);
     }
 
-    List<String> getLastContent(Lang lang, ContentType contentType, int limit) {
-        Path contentPath = this.getContentDirectoryPath(lang, contentType);
-
-        return this.getLastContentPath(contentPath, SEARCH_DEPTH, limit).stream()
-                .map(this::readContent)
-                .toList();
+    List<ContentEntry> getLastEntries(Lang lang, ContentType contentType, int limit) {
+        return this.index.last(lang, contentType, limit);
     }
 
-    private Path getContentDirectoryPath(Lang lang, ContentType contentType) {
-        return Path.of(baseDir)
-                .resolve(lang.name())
-                .resolve(contentType.getBaseDir());
+    List<ContentEntry> getEntries(Lang lang, ContentType contentType, ContentCursor after, int size) {
+        return this.index.page(lang, contentType, after, size);
     }
 
-    private List<Path> getLastContentPath(Path currentDir, int searchDepth, int limit) {
-        List<Path> lastCreated = new ArrayList<>();
-        List<Path> directories = this.getDirectories(currentDir);
-        if (searchDepth != 0) {
-            --searchDepth;
-            for (Path directory : directories) {
-                lastCreated.addAll(getLastContentPath(directory, searchDepth, limit - lastCreated.size()));
-                if (lastCreated.size() == limit) {
-                    break;
-                }
-            }
-        } else {
-            List<Path> content = this.getFiles(currentDir);
-            lastCreated.addAll(content.stream()
-                    .limit(limit - lastCreated.size())
-                    .toList());
-        }
-        return lastCreated;
+    List<ContentEntry> getEntries(Lang lang, ContentType contentType, LocalDate from, LocalDate to,
+                                  ContentCursor after, int size) {
+        return this.index.range(lang, contentType, from, to, after, size);
     }
 
-    private List<Path> getDirectories(Path path) {
-        try (Stream<Path> pathStream = Files.list(path)) {
-            return pathStream.filter(Files::isDirectory)
-                    .sorted((Path p1, Path p2) -> Integer.valueOf(p2.getFileName().toString())
-                                .compareTo(Integer.valueOf(p1.getFileName().toString())))
-                    .toList();
-        } catch (IOException ex) {
-            throw new StorageException("Can't get directories from path: " + path, ex);
-        }
+    String readContent(Path contentPath) {
+        return new String(this.backend.readBytes(contentPath), StandardCharsets.UTF_8);
     }
 
-    private List<Path> getFiles(Path path) {
-        try (Stream<Path> pathStream = Files.list(path)) {
-            return pathStream.filter(Files::isRegularFile)
-                    .filter(p -> p.getFileName().toString().endsWith(FILE_EXTENSION))
-                    .sorted((p1, p2) -> this.getCreationTime(p2).compareTo(this.getCreationTime(p1)))
-                    .toList();
-        } catch (IOException ex) {
-            throw new StorageException("Can't get files from path: " + path, ex);
-        }
+    byte[] readBytes(Path contentPath) {
+        return this.backend.readBytes(contentPath);
     }
 
-    private FileTime getCreationTime(Path path) {
-        try {
-            return Files.readAttributes(path, BasicFileAttributes.class).creationTime();
-        } catch (IOException ex) {
-            throw new StorageException("Can't read creation time from: " + path.getFileName(), ex);
-        }
+    InputStream open(Path contentPath) throws IOException {
+        return this.backend.open(contentPath);
     }
 
-    private String readContent(Path contentPath) {
-        try {
-            return Files.readString(contentPath);
-        } catch (IOException ex) {
-            throw new StorageException("Can't read content from file: " + contentPath.getFileName(), ex);
-        }
+    /**
+     * Streams the content, it is never held on heap as a whole.
+     */
+    StreamingOutput streamContent(Path contentPath) {
+        return this.backend.stream(contentPath);
     }
 
-    private Path constructContentPath(Lang lang, ContentType type, String date, String fileName) {
+    Path constructContentPath(Lang lang, ContentType type, String date, String fileName) {
         Path contentPath = this.getStorageDirectoryPath()
             .resolve(lang.name())
             .resolve(type.getBaseDir());
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2023 Aleksey Popov <alexnerd.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package alexnerd.content.content.control;
+
+import jakarta.ws.rs.core.StreamingOutput;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+
+/**
+ * Where the content files live. {@link Storage} resolves content to a path under {@code root.storage.dir}
+ * and the backend selected with {@code storage.backend} reads it: {@code files} for the plain
+ * {@code lang/baseDir/yyyy/m/d} tree, {@code segments} for the packs written by {@link SegmentPacker}.
+ */
+public interface StorageBackend {
+
+    /**
+     * @throws FileNotFoundException if there is no content at this path
+     */
+    BasicFileAttributes getAttributes(Path contentPath) throws FileNotFoundException;
+
+    byte[] readBytes(Path contentPath);
+
+    InputStream open(Path contentPath) throws IOException;
+
+    /**
+     * Writes the content to the response without holding it on heap as a whole.
+     */
+    StreamingOutput stream(Path contentPath);
+
+    /**
+     * Every content file of a {@code lang/baseDir} directory, in no particular order.
+     */
+    List<ContentEntry> list(Path contentDirectory);
+
+    /**
+     * Whether changes show up as files that can be watched, otherwise the index is rescanned periodically.
+     */
+    boolean isWatchable();
+}
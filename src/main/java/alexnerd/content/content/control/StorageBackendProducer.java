@@ -0,0 +1,39 @@
+/*
+ * Copyright 2023 Aleksey Popov <alexnerd.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package alexnerd.content.content.control;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Produces;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Selects the {@link StorageBackend} with {@code storage.backend}: {@code files} (default) or {@code segments}.
+ */
+@ApplicationScoped
+public class StorageBackendProducer {
+
+    @Produces
+    @ApplicationScoped
+    StorageBackend backend(@ConfigProperty(name = "storage.backend", defaultValue = "files") String backend,
+                           FileTreeBackend files, SegmentBackend segments) {
+        return switch (backend) {
+            case "files" -> files;
+            case "segments" -> segments;
+            default -> throw new IllegalStateException("Unknown storage.backend: " + backend);
+        };
+    }
+}
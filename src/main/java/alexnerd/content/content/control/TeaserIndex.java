@@ -0,0 +1,63 @@
+/*
+ * Copyright 2023 Aleksey Popov <alexnerd.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package alexnerd.content.content.control;
+
+import alexnerd.content.content.control.adapters.ContentDeserializer;
+import alexnerd.content.content.control.enums.Lang;
+import alexnerd.content.content.entity.Content;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@code LAST_ARTICLES} JSON of every article, per {@link Lang}, kept up to date by the {@link SearchIndex}
+ * pass that reads changed articles anyway. A teaser is only served for the modification time it was
+ * built from, so {@code /last?type=LAST_ARTICLES} needs neither file reads nor parsing.
+ */
+@ApplicationScoped
+public class TeaserIndex {
+
+    private final Map<Lang, Map<Path, Teaser>> teasers = new EnumMap<>(Lang.class);
+
+    public TeaserIndex() {
+        for (Lang lang : Lang.values()) {
+            this.teasers.put(lang, new ConcurrentHashMap<>());
+        }
+    }
+
+    public Optional<byte[]> get(Lang lang, Path path, FileTime lastModified) {
+        Teaser teaser = this.teasers.get(lang).get(path);
+        return teaser != null && teaser.lastModified().equals(lastModified) ? Optional.of(teaser.json()) : Optional.empty();
+    }
+
+    void put(Lang lang, ContentEntry entry, Content article) {
+        byte[] json = ContentDeserializer.teaserJson(article);
+        this.teasers.get(lang).put(entry.path(), new Teaser(entry.lastModified(), json));
+    }
+
+    void remove(Lang lang, Path path) {
+        this.teasers.get(lang).remove(path);
+    }
+
+    private record Teaser(FileTime lastModified, byte[] json) {
+    }
+}
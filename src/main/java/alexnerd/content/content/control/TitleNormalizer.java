@@ -17,36 +17,80 @@
 package alexnerd.content.content.control;
 
 import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Maps a title to its file name: letters and digits are kept, every other code point becomes the separator.
+ * Titles that need no replacement are returned as they are, the others are remembered in a small
+ * direct mapped memo of {@code title.memo.size} slots where a newer title simply takes the slot over.
+ */
+@ApplicationScoped
 public class TitleNormalizer {
 
     @Inject
     @ConfigProperty(name = "title.separator", defaultValue = "-")
     String titleSeparator;
 
+    @Inject
+    @ConfigProperty(name = "title.memo.size", defaultValue = "1024")
+    int memoSize;
+
     private int codePointSeparator;
 
+    private AtomicReferenceArray<Normalized> memo;
+
+    private int memoMask;
+
     @PostConstruct
     public void init() {
         this.codePointSeparator = this.titleSeparator.codePoints()
                 .findFirst()
                 .orElseThrow();
+        int slots = Integer.highestOneBit(Math.max(1, this.memoSize - 1) << 1);
+        this.memo = new AtomicReferenceArray<>(slots);
+        this.memoMask = slots - 1;
     }
 
     public String normalize(String title) {
-        return title.codePoints()
-                .map(this::replaceDigitOrLetter)
-                .collect(StringBuilder::new, StringBuilder::appendCodePoint, StringBuilder::append)
-                .toString();
+        int length = title.length();
+        int valid = 0;
+        while (valid < length) {
+            int codePoint = title.codePointAt(valid);
+            if (!Character.isLetterOrDigit(codePoint)) {
+                break;
+            }
+            valid += Character.charCount(codePoint);
+        }
+        if (valid == length) {
+            return title;
+        }
+        int slot = title.hashCode() & this.memoMask;
+        Normalized remembered = this.memo.get(slot);
+        if (remembered != null && remembered.title().equals(title)) {
+            return remembered.fileName();
+        }
+        String fileName = this.replace(title, valid);
+        this.memo.set(slot, new Normalized(title, fileName));
+        return fileName;
     }
 
-    private int replaceDigitOrLetter(int codePoint) {
-        if (Character.isLetterOrDigit(codePoint)) {
-            return codePoint;
-        } else {
-            return codePointSeparator;
+    private String replace(String title, int from) {
+        int length = title.length();
+        StringBuilder fileName = new StringBuilder(length + 1);
+        fileName.append(title, 0, from);
+        int index = from;
+        while (index < length) {
+            int codePoint = title.codePointAt(index);
+            fileName.appendCodePoint(Character.isLetterOrDigit(codePoint) ? codePoint : this.codePointSeparator);
+            index += Character.charCount(codePoint);
         }
+        return fileName.toString();
+    }
+
+    private record Normalized(String title, String fileName) {
     }
 }
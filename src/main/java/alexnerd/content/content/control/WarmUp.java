@@ -0,0 +1,121 @@
+/*
+ * Copyright 2023 Aleksey Popov <alexnerd.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package alexnerd.content.content.control;
+
+import alexnerd.content.content.control.enums.Lang;
+import alexnerd.content.content.entity.enums.ContentType;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ManagedExecutorService;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Fills the read caches once the {@link ContentIndex} is loaded after deployment: the {@link HotSet} of the
+ * previous run first, then the newest {@code content.warmup.newest} entries of every language and content type.
+ * Warm-up is done when this is finished or {@code content.warmup.timeout} seconds after deployment, whichever
+ * comes first; what isn't warm by then is left to the first requests.
+ */
+@ApplicationScoped
+public class WarmUp {
+
+    private static final Logger LOG = Logger.getLogger(WarmUp.class.getName());
+
+    @Inject
+    private ContentStore store;
+
+    @Inject
+    private HotSet hotSet;
+
+    @Inject
+    private Storage storage;
+
+    @Resource
+    private ManagedExecutorService executor;
+
+    @Inject
+    @ConfigProperty(name = "content.warmup.enabled", defaultValue = "true")
+    private boolean enabled;
+
+    @Inject
+    @ConfigProperty(name = "content.warmup.newest", defaultValue = "20")
+    private int newest;
+
+    @Inject
+    @ConfigProperty(name = "content.warmup.timeout", defaultValue = "120")
+    private long timeoutInSeconds;
+
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    private volatile boolean finished;
+
+    private volatile boolean deployed;
+
+    private volatile long deadline;
+
+    void onStart(@Observes @Initialized(ApplicationScoped.class) Object ignored) {
+        this.deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(this.timeoutInSeconds);
+        this.deployed = true;
+        if (!this.enabled) {
+            this.finished = true;
+        }
+    }
+
+    /**
+     * The index fires a change of the whole storage once it is loaded.
+     */
+    void onChange(@Observes ContentChange change) {
+        if (this.enabled && change.path().equals(this.storage.getStorageDirectoryPath())
+                && this.started.compareAndSet(false, true)) {
+            this.executor.execute(this::run);
+        }
+    }
+
+    public boolean isDone() {
+        return this.finished || this.deployed && System.nanoTime() - this.deadline >= 0;
+    }
+
+    void run() {
+        long start = System.nanoTime();
+        int warmed = 0;
+        try {
+            warmed += this.store.warm(this.hotSet.top());
+            for (Lang lang : Lang.values()) {
+                for (ContentType type : ContentType.values()) {
+                    if (this.isDone()) {
+                        LOG.warning("Warm-up timed out after " + warmed + " pieces of content");
+                        return;
+                    }
+                    warmed += this.store.warm(lang, type, this.newest);
+                }
+            }
+            LOG.info("Warmed up " + warmed + " pieces of content in "
+                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+        } catch (RuntimeException ex) {
+            LOG.log(Level.WARNING, "Warm-up failed after " + warmed + " pieces of content", ex);
+        } finally {
+            this.finished = true;
+        }
+    }
+}
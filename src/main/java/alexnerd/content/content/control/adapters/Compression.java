@@ -0,0 +1,59 @@
+/*
+ * Copyright 2023 Aleksey Popov <alexnerd.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package alexnerd.content.content.control.adapters;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+public interface Compression {
+
+    static byte[] gzip(byte[] content) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(content.length / 4 + 64);
+        try (GZIPOutputStream gzip = new BestGzipOutputStream(compressed)) {
+            gzip.write(content);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return compressed.toByteArray();
+    }
+
+    /**
+     * Compresses a stream without reading it onto the heap first, the stream is closed afterwards.
+     */
+    static byte[] gzip(InputStream content) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (InputStream in = content;
+             GZIPOutputStream gzip = new BestGzipOutputStream(compressed)) {
+            in.transferTo(gzip);
+        }
+        return compressed.toByteArray();
+    }
+
+    /**
+     * Variants are compressed once and served many times, so the slowest level is worth it.
+     */
+    class BestGzipOutputStream extends GZIPOutputStream {
+        BestGzipOutputStream(ByteArrayOutputStream out) throws IOException {
+            super(out, 8192);
+            this.def.setLevel(Deflater.BEST_COMPRESSION);
+        }
+    }
+}
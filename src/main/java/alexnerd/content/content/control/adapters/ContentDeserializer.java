@@ -18,18 +18,83 @@ package alexnerd.content.content.control.adapters;
 
 import alexnerd.content.content.entity.Content;
 import alexnerd.content.content.entity.enums.ContentType;
+import jakarta.json.Json;
+import jakarta.json.stream.JsonParser;
+import jakarta.json.stream.JsonParserFactory;
+import jakarta.json.stream.JsonParsingException;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
 
 public interface ContentDeserializer {
 
+    JsonParserFactory parsers = Json.createParserFactory(Map.of());
+
     static Content deserialize(String content, ContentType type) {
         return switch (type) {
             case POST, ARTICLE, ARTICLE_TEASER -> JsonMapper.load(content);
-            case LAST_ARTICLES -> {
-                Content post = JsonMapper.load(content);
-                yield new Content(post.title(), ContentType.LAST_ARTICLES, null, null,
-                        post.createDate(), post.link());
-            }
+            case LAST_ARTICLES -> teaser(parsers.createParser(new StringReader(content)));
             default -> throw new IllegalStateException("Unsupported content type: " + type);
         };
     }
+
+    /**
+     * {@code LAST_ARTICLES} projection of a stored article: only {@code title}, {@code createDate} and
+     * {@code link} are read, every other value is skipped without being materialized and parsing stops
+     * as soon as the three of them are known.
+     */
+    static Content teaser(byte[] json) {
+        return teaser(parsers.createParser(new ByteArrayInputStream(json), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Serialized {@code LAST_ARTICLES} projection of an article, the same bytes whichever way the article was read.
+     */
+    static byte[] teaserJson(Content article) {
+        Content teaser = new Content(article.title(), ContentType.LAST_ARTICLES, null, null,
+                article.createDate(), article.link());
+        return JsonMapper.save(teaser).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Content teaser(JsonParser parser) {
+        try (parser) {
+            if (!parser.hasNext() || parser.next() != JsonParser.Event.START_OBJECT) {
+                throw new JsonParsingException("Content is not a JSON object", parser.getLocation());
+            }
+            String title = null;
+            String createDate = null;
+            String link = null;
+            int found = 0;
+            while (found < 3 && parser.next() == JsonParser.Event.KEY_NAME) {
+                String key = parser.getString();
+                JsonParser.Event value = parser.next();
+                switch (key) {
+                    case "title" -> title = text(parser, value);
+                    case "createDate" -> createDate = text(parser, value);
+                    case "link" -> link = text(parser, value);
+                    default -> {
+                        skip(parser, value);
+                        continue;
+                    }
+                }
+                found++;
+            }
+            return new Content(title, ContentType.LAST_ARTICLES, null, null, createDate, link);
+        }
+    }
+
+    private static String text(JsonParser parser, JsonParser.Event value) {
+        skip(parser, value);
+        return value == JsonParser.Event.VALUE_STRING ? parser.getString() : null;
+    }
+
+    private static void skip(JsonParser parser, JsonParser.Event value) {
+        if (value == JsonParser.Event.START_OBJECT) {
+            parser.skipObject();
+        } else if (value == JsonParser.Event.START_ARRAY) {
+            parser.skipArray();
+        }
+    }
 }
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2023 Aleksey Popov <alexnerd.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package alexnerd.content.content.control.adapters;
+
+import java.util.List;
+
+public interface JsonArrays {
+
+    /**
+     * Joins already serialized JSON values into a JSON array without parsing them again.
+     */
+    static byte[] join(List<byte[]> elements) {
+        int length = 2 + Math.max(0, elements.size() - 1);
+        for (byte[] element : elements) {
+            length += element.length;
+        }
+        byte[] joined = new byte[length];
+        joined[0] = '[';
+        int position = 1;
+        for (int i = 0; i < elements.size(); i++) {
+            if (i > 0) {
+                joined[position++] = ',';
+            }
+            byte[] element = elements.get(i);
+            System.arraycopy(element, 0, joined, position, element.length);
+            position += element.length;
+        }
+        joined[position] = ']';
+        return joined;
+    }
+}
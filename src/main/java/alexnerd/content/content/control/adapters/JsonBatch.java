@@ -0,0 +1,45 @@
+/*
+ * Copyright 2023 Aleksey Popov <alexnerd.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package alexnerd.content.content.control.adapters;
+
+import jakarta.json.Json;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+public interface JsonBatch {
+
+    /**
+     * {@code {"date":"...","title":"...","status":200,"content":{...}}} around already serialized content,
+     * {@code content} is left out when there is none.
+     */
+    static byte[] item(String date, String title, int status, byte[] content) {
+        String head = "{\"date\":" + quote(date) + ",\"title\":" + quote(title) + ",\"status\":" + status;
+        ByteArrayOutputStream item = new ByteArrayOutputStream(head.length() + (content == null ? 1 : content.length + 13));
+        item.writeBytes(head.getBytes(StandardCharsets.UTF_8));
+        if (content != null) {
+            item.writeBytes(",\"content\":".getBytes(StandardCharsets.UTF_8));
+            item.writeBytes(content);
+        }
+        item.write('}');
+        return item.toByteArray();
+    }
+
+    private static String quote(String value) {
+        return value == null ? "null" : Json.createValue(value).toString();
+    }
+}
@@ -21,24 +21,23 @@ import jakarta.json.bind.Jsonb;
 import jakarta.json.bind.JsonbBuilder;
 import jakarta.json.bind.JsonbConfig;
 
+/**
+ * JSON-B binding of {@link Content}. {@link Jsonb} instances are thread-safe, so a single one is
+ * created up front and shared, building it per call repeats provider lookup and the class model
+ * introspection of {@link Content}.
+ */
 public interface JsonMapper {
     JsonbConfig config = new JsonbConfig()
             .withFormatting(true)
             .withPropertyVisibilityStrategy(new PrivateVisibilityStrategy());
 
+    Jsonb jsonb = JsonbBuilder.create(config);
+
     static String save(Content content) {
-        try (Jsonb jsonb = JsonbBuilder.create(config)) {
-            return jsonb.toJson(content);
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
+        return jsonb.toJson(content);
     }
 
     static Content load(String stringified) {
-        try (Jsonb jsonb = JsonbBuilder.create(config)) {
-            return jsonb.fromJson(stringified, Content.class);
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
+        return jsonb.fromJson(stringified, Content.class);
     }
 }
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2023 Aleksey Popov <alexnerd.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package alexnerd.content.content.control.adapters;
+
+import jakarta.json.Json;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+public interface JsonPages {
+
+    /**
+     * {@code {"items":[...],"next":"..."}} around already serialized items, {@code next} may be {@code null}.
+     */
+    static byte[] of(List<byte[]> items, String next) {
+        byte[] array = JsonArrays.join(items);
+        String nextValue = next == null ? "null" : Json.createValue(next).toString();
+        ByteArrayOutputStream page = new ByteArrayOutputStream(array.length + nextValue.length() + 20);
+        page.writeBytes("{\"items\":".getBytes(StandardCharsets.UTF_8));
+        page.writeBytes(array);
+        page.writeBytes((",\"next\":" + nextValue + "}").getBytes(StandardCharsets.UTF_8));
+        return page.toByteArray();
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2023 Aleksey Popov <alexnerd.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package alexnerd.content.content.control.adapters;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+public interface TextAnalyzer {
+
+    Set<String> STOP_WORDS = Set.of(
+            "а", "без", "более", "бы", "был", "была", "были", "было", "быть", "в", "вам", "вас", "весь", "во",
+            "вот", "все", "всего", "всех", "вы", "где", "да", "даже", "для", "до", "его", "ее", "если", "есть",
+            "еще", "же", "за", "здесь", "и", "из", "или", "им", "их", "к", "как", "когда", "кто", "ли", "либо",
+            "мне", "может", "мы", "на", "над", "надо", "наш", "не", "него", "нее", "нет", "ни", "них", "но",
+            "ну", "о", "об", "однако", "он", "она", "они", "оно", "от", "очень", "по", "под", "при", "с", "со",
+            "так", "также", "такой", "там", "те", "тем", "то", "того", "тоже", "той", "только", "том", "ты",
+            "у", "уже", "хотя", "чего", "чей", "чем", "что", "чтобы", "чье", "эта", "эти", "это", "этого",
+            "этой", "этом", "этот", "я",
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "in", "is", "it", "of", "on", "or",
+            "that", "the", "this", "to", "was", "with");
+
+    /**
+     * Endings stripped by {@link #stem(String)}, longer ones first.
+     */
+    List<String> ENDINGS = List.of(
+            "иями", "ями", "ами", "ого", "его", "ому", "ему", "ыми", "ими", "иях", "ией",
+            "ий", "ей", "ой", "ый", "ая", "яя", "ое", "ее", "ие", "ые", "ых", "их", "ую", "юю", "ом", "ем",
+            "ах", "ях", "ов", "ев", "ью", "ия", "ья", "ям", "ам",
+            "а", "я", "о", "е", "ы", "и", "у", "ю", "ь", "й");
+
+    int MIN_STEM_LENGTH = 3;
+
+    /**
+     * Splits text into search terms: markup tags are skipped, words are lower cased with ё folded into е,
+     * stop words are dropped and Cyrillic words are reduced to their stem.
+     */
+    static List<String> terms(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        StringBuilder word = new StringBuilder();
+        int index = 0;
+        while (index < text.length()) {
+            int codePoint = text.codePointAt(index);
+            if (codePoint == '<') {
+                int end = tagEnd(text, index);
+                if (end > 0) {
+                    addTerm(terms, word);
+                    index = end;
+                    continue;
+                }
+            }
+            index += Character.charCount(codePoint);
+            if (Character.isLetterOrDigit(codePoint)) {
+                int lower = Character.toLowerCase(codePoint);
+                word.appendCodePoint(lower == 'ё' ? 'е' : lower);
+                continue;
+            }
+            addTerm(terms, word);
+        }
+        addTerm(terms, word);
+        return terms;
+    }
+
+    /**
+     * End of the tag starting at {@code start}, or -1 if the {@code <} there is plain text. Closing tags
+     * and comments are tags wherever they are, an opening tag only when it doesn't follow a letter or digit,
+     * so {@code a < b} and {@code List<String>} are text.
+     */
+    private static int tagEnd(String text, int start) {
+        int next = start + 1;
+        if (next >= text.length()) {
+            return -1;
+        }
+        char first = text.charAt(next);
+        boolean closing = first == '/' && next + 1 < text.length() && isAsciiLetter(text.charAt(next + 1));
+        boolean opening = isAsciiLetter(first)
+                && (start == 0 || !Character.isLetterOrDigit(text.codePointBefore(start)));
+        if (!closing && !opening && first != '!') {
+            return -1;
+        }
+        for (int i = next; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '>') {
+                return i + 1;
+            }
+            if (c == '<') {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    /**
+     * Light stemming: strips the longest known inflectional ending as long as the stem keeps
+     * at least {@link #MIN_STEM_LENGTH} characters.
+     */
+    static String stem(String word) {
+        if (!isCyrillic(word)) {
+            return word;
+        }
+        for (String ending : ENDINGS) {
+            if (word.endsWith(ending) && word.length() - ending.length() >= MIN_STEM_LENGTH) {
+                return word.substring(0, word.length() - ending.length());
+            }
+        }
+        return word;
+    }
+
+    private static void addTerm(List<String> terms, StringBuilder word) {
+        if (word.isEmpty()) {
+            return;
+        }
+        String term = word.toString();
+        word.setLength(0);
+        if (!STOP_WORDS.contains(term)) {
+            terms.add(stem(term));
+        }
+    }
+
+    private static boolean isCyrillic(String word) {
+        return Character.UnicodeBlock.of(word.charAt(0)) == Character.UnicodeBlock.CYRILLIC;
+    }
+}
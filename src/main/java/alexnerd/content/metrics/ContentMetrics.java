@@ -16,23 +16,68 @@
 
 package alexnerd.content.metrics;
 
+import alexnerd.content.content.control.ContentKey;
+import alexnerd.content.content.control.HotSet;
 import alexnerd.content.content.control.StorageException;
 import alexnerd.content.content.control.Storage;
+import alexnerd.content.content.entity.enums.ContentType;
+import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.metrics.MetricID;
 import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.MetricUnits;
+import org.eclipse.microprofile.metrics.Tag;
+import org.eclipse.microprofile.metrics.Timer;
 import org.eclipse.microprofile.metrics.annotation.Gauge;
 import org.eclipse.microprofile.metrics.annotation.RegistryType;
 
 import java.io.IOException;
 import java.nio.file.Files;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
+@ApplicationScoped
 public class ContentMetrics {
     @Inject
     private Storage storage;
     @Inject
+    private HotSet hotSet;
+    @Inject
     @RegistryType(type = MetricRegistry.Type.APPLICATION)
     private MetricRegistry registry;
 
+    @Inject
+    @ConfigProperty(name = "metrics.top.hits", defaultValue = "10")
+    private int topHits;
+
+    @Inject
+    @ConfigProperty(name = "metrics.stage.percentiles", defaultValue = "0.5,0.9,0.99")
+    private List<Double> stagePercentiles;
+
+    private final AtomicLong refreshLag = new AtomicLong();
+
+    private final static String STAGE_METRIC = "content_stage";
+
+    private final static String STAGE_PERCENTILE_METRIC = "content_stage_percentile";
+
+    private final Map<StageKey, Timer> stageTimers = new ConcurrentHashMap<>();
+
+    private final static String HITS_METRIC = "content_hits";
+
+    private final static long HITS_EXPORT_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+
+    private final AtomicLong nextHitsExport = new AtomicLong(System.nanoTime());
+
+    private Set<ContentKey> exportedHits = Set.of();
+
     public void increaseNotExistingContentCounter() {
         this.registry.counter("fetch_content_with_not_existing_title").inc();
     }
@@ -46,7 +91,139 @@ public class ContentMetrics {
         }
     }
 
-    public void increaseHitCounter(String title) {
-        this.registry.counter("content_hits_" + title).inc();
+    /**
+     * Counts a hit of existing content in the {@link HotSet}. At most once per second the current top
+     * {@code metrics.top.hits} of the hot set are exported as {@code content_hits} gauges tagged with the
+     * content's title, language, type and date. Gauges of content that dropped out are removed, so the
+     * registry never holds more than {@code metrics.top.hits} of them.
+     */
+    public void increaseHitCounter(ContentKey key) {
+        this.hotSet.hit(key);
+        long now = System.nanoTime();
+        long next = this.nextHitsExport.get();
+        if (now - next >= 0 && this.nextHitsExport.compareAndSet(next, now + HITS_EXPORT_INTERVAL)) {
+            this.exportTopHits();
+        }
+    }
+
+    public List<ContentKey> getTopHits() {
+        return this.hotSet.top(this.topHits);
+    }
+
+    private synchronized void exportTopHits() {
+        Set<ContentKey> top = Set.copyOf(this.getTopHits());
+        for (ContentKey key : this.exportedHits) {
+            if (!top.contains(key)) {
+                this.registry.remove(new MetricID(HITS_METRIC, hitTags(key)));
+            }
+        }
+        for (ContentKey key : top) {
+            if (!this.exportedHits.contains(key)) {
+                this.registry.gauge(HITS_METRIC, () -> this.hotSet.count(key), hitTags(key));
+            }
+        }
+        this.exportedHits = top;
+    }
+
+    private static Tag[] hitTags(ContentKey key) {
+        return new Tag[]{new Tag("title", key.fileName()), new Tag("lang", key.lang().name()),
+                new Tag("type", key.type().name()), new Tag("date", key.date())};
+    }
+
+    public void increaseCacheHitCounter() {
+        this.registry.counter("content_cache_hits").inc();
+    }
+
+    public void increaseCacheMissCounter() {
+        this.registry.counter("content_cache_misses").inc();
+    }
+
+    public void increaseCacheEvictionCounter(long evicted) {
+        if (evicted > 0) {
+            this.registry.counter("content_cache_evictions").inc(evicted);
+        }
+    }
+
+    public void increaseMissingCacheHitCounter() {
+        this.registry.counter("content_missing_cache_hits").inc();
+    }
+
+    public void increaseMissingCacheMissCounter() {
+        this.registry.counter("content_missing_cache_misses").inc();
+    }
+
+    /**
+     * Size of the cache of missing content and the share of lookups it answered so far.
+     */
+    public void registerMissingCacheGauges(Supplier<Integer> size) {
+        this.registry.gauge("content_missing_cache_size", size);
+        this.registry.gauge("content_missing_cache_hit_ratio", () -> {
+            long hits = this.registry.counter("content_missing_cache_hits").getCount();
+            long lookups = hits + this.registry.counter("content_missing_cache_misses").getCount();
+            return lookups == 0 ? 0.0 : (double) hits / lookups;
+        });
+    }
+
+    public void registerExecutionGauges(Supplier<Integer> queued, Supplier<Integer> active) {
+        this.registry.gauge("content_execution_queued", queued);
+        this.registry.gauge("content_execution_active", active);
+    }
+
+    public void updateExecutionQueueWait(Duration wait) {
+        this.registry.timer("content_execution_queue_wait").update(wait);
+    }
+
+    public void updateRequestTime(String name, Duration duration) {
+        this.registry.timer(name).update(duration);
+    }
+
+    public void increaseExecutionRejectedCounter() {
+        this.registry.counter("content_execution_rejected").inc();
+    }
+
+    /**
+     * Records how long a stage of the read pipeline took. Every stage, content type and cache outcome
+     * gets its own {@code content_stage} timer, its configured {@code metrics.stage.percentiles} are
+     * exported as {@code content_stage_percentile} gauges in milliseconds.
+     */
+    public void updateStage(Stage stage, ContentType type, CacheResult cache, long nanos) {
+        this.stageTimers.computeIfAbsent(new StageKey(stage, type, cache), this::registerStage)
+                .update(Duration.ofNanos(nanos));
+    }
+
+    private Timer registerStage(StageKey key) {
+        Tag[] tags = {new Tag("stage", key.stage().name().toLowerCase(Locale.ROOT)),
+                new Tag("type", key.type().name()),
+                new Tag("cache", key.cache().name().toLowerCase(Locale.ROOT))};
+        Timer timer = this.registry.timer(STAGE_METRIC, tags);
+        for (double percentile : this.stagePercentiles) {
+            Tag[] percentileTags = {tags[0], tags[1], tags[2], new Tag("quantile", String.valueOf(percentile))};
+            this.registry.gauge(STAGE_PERCENTILE_METRIC,
+                    () -> timer.getSnapshot().getValue(percentile) / 1_000_000, percentileTags);
+        }
+        return timer;
+    }
+
+    public void updateRefreshLag(Duration lag) {
+        this.refreshLag.set(Math.max(0, lag.toMillis()));
+    }
+
+    @Gauge(unit = MetricUnits.MILLISECONDS)
+    public long getContentRefreshLag() {
+        return this.refreshLag.get();
+    }
+
+    public enum Stage {
+        NORMALIZE, STAT, READ, DESERIALIZE, SERIALIZE
+    }
+
+    /**
+     * Whether the stage ran for content found in the cache, {@code NONE} for stages before the cache is asked.
+     */
+    public enum CacheResult {
+        HIT, MISS, NONE
+    }
+
+    private record StageKey(Stage stage, ContentType type, CacheResult cache) {
     }
 }
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2023 Aleksey Popov <alexnerd.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package alexnerd.content.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-Saving heavy hitter tracker: at most {@code capacity} keys are monitored. An unmonitored
+ * key replaces the one with the lowest count and inherits that count as its error, so counts are
+ * over-estimated by at most {@code error} and every key hit more than {@code total / capacity}
+ * times is guaranteed to be monitored. Memory is bounded by {@code capacity} regardless of how many
+ * distinct keys are seen.
+ * <p>
+ * Counters are kept in a Stream-Summary: buckets of equal counts in a list ordered by count, so a hit
+ * moves its counter to the neighbouring bucket and the minimum is always the first bucket, both in
+ * constant time.
+ */
+public class HitTracker {
+
+    private final int capacity;
+
+    private final Map<String, Counter> monitored;
+
+    private Bucket smallest;
+
+    private Bucket largest;
+
+    public HitTracker(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1: " + capacity);
+        }
+        this.capacity = capacity;
+        this.monitored = new HashMap<>(capacity * 2);
+    }
+
+    public void hit(String key) {
+        this.add(key, 1);
+    }
+
+    /**
+     * Counts {@code count} hits at once, e.g. to seed the tracker with counts kept from a previous run.
+     * Hits larger than one may walk several buckets.
+     */
+    public synchronized void add(String key, long count) {
+        Counter counter = this.monitored.get(key);
+        if (counter != null) {
+            this.move(counter, counter.bucket.count + count);
+            return;
+        }
+        if (this.monitored.size() < this.capacity) {
+            counter = new Counter(key, 0);
+            this.monitored.put(key, counter);
+            this.move(counter, count);
+            return;
+        }
+        Counter minimum = this.smallest.head;
+        long error = this.smallest.count;
+        this.monitored.remove(minimum.key);
+        minimum.key = key;
+        minimum.error = error;
+        this.monitored.put(key, minimum);
+        this.move(minimum, error + count);
+    }
+
+    public synchronized long count(String key) {
+        Counter counter = this.monitored.get(key);
+        return counter == null ? 0 : counter.bucket.count;
+    }
+
+    /**
+     * Highest counts first, equal counts ordered by key.
+     */
+    public synchronized List<Hit> top(int limit) {
+        List<Hit> top = new ArrayList<>(Math.min(limit, this.monitored.size()));
+        for (Bucket bucket = this.largest; bucket != null && top.size() < limit; bucket = bucket.smaller) {
+            List<Hit> equal = new ArrayList<>();
+            for (Counter counter = bucket.head; counter != null; counter = counter.next) {
+                equal.add(new Hit(counter.key, bucket.count, counter.error));
+            }
+            equal.sort(Comparator.comparing(Hit::key));
+            top.addAll(equal.subList(0, Math.min(equal.size(), limit - top.size())));
+        }
+        return top;
+    }
+
+    /**
+     * Moves the counter to the bucket of {@code count}, which is never lower than its current count.
+     */
+    private void move(Counter counter, long count) {
+        Bucket previous = counter.bucket;
+        Bucket cursor = previous != null ? previous : this.smallest;
+        Bucket target;
+        if (cursor == null || cursor.count > count) {
+            target = this.insertAfter(null, count);
+        } else {
+            while (cursor.larger != null && cursor.larger.count <= count) {
+                cursor = cursor.larger;
+            }
+            target = cursor.count == count ? cursor : this.insertAfter(cursor, count);
+        }
+        if (target == previous) {
+            return;
+        }
+        if (previous != null) {
+            this.detach(counter);
+        }
+        counter.bucket = target;
+        counter.previous = null;
+        counter.next = target.head;
+        if (target.head != null) {
+            target.head.previous = counter;
+        }
+        target.head = counter;
+    }
+
+    private Bucket insertAfter(Bucket before, long count) {
+        Bucket bucket = new Bucket(count);
+        Bucket after = before == null ? this.smallest : before.larger;
+        bucket.smaller = before;
+        bucket.larger = after;
+        if (before == null) {
+            this.smallest = bucket;
+        } else {
+            before.larger = bucket;
+        }
+        if (after == null) {
+            this.largest = bucket;
+        } else {
+            after.smaller = bucket;
+        }
+        return bucket;
+    }
+
+    private void detach(Counter counter) {
+        Bucket bucket = counter.bucket;
+        if (counter.previous != null) {
+            counter.previous.next = counter.next;
+        } else {
+            bucket.head = counter.next;
+        }
+        if (counter.next != null) {
+            counter.next.previous = counter.previous;
+        }
+        if (bucket.head != null) {
+            return;
+        }
+        if (bucket.smaller != null) {
+            bucket.smaller.larger = bucket.larger;
+        } else {
+            this.smallest = bucket.larger;
+        }
+        if (bucket.larger != null) {
+            bucket.larger.smaller = bucket.smaller;
+        } else {
+            this.largest = bucket.smaller;
+        }
+    }
+
+    public record Hit(String key, long count, long error) {
+    }
+
+    private static class Bucket {
+
+        private final long count;
+
+        private Bucket smaller;
+
+        private Bucket larger;
+
+        private Counter head;
+
+        Bucket(long count) {
+            this.count = count;
+        }
+    }
+
+    private static class Counter {
+
+        private String key;
+
+        private long error;
+
+        private Bucket bucket;
+
+        private Counter previous;
+
+        private Counter next;
+
+        Counter(String key, long error) {
+            this.key = key;
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2023 Aleksey Popov <alexnerd.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package alexnerd.content.checks;
+
+import alexnerd.content.content.control.ContentFile;
+import alexnerd.content.content.control.ContentStore;
+import alexnerd.content.content.control.Storage;
+import alexnerd.content.content.control.enums.Lang;
+import alexnerd.content.content.entity.Content;
+import alexnerd.content.content.entity.enums.ContentType;
+import org.eclipse.microprofile.health.HealthCheck;
+import org.eclipse.microprofile.health.HealthCheckResponse;
+import org.eclipse.microprofile.health.HealthCheckResponseBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.reflect.Field;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LivenessCheckTest {
+    @TempDir
+    Path root;
+
+    private final List<String> peeked = new ArrayList<>();
+
+    private HealthSampler sampler;
+
+    private LivenessCheck cut;
+
+    @BeforeAll
+    public static void provider() {
+        HealthCheckResponse.setResponseProvider(MapResponseBuilder::new);
+    }
+
+    @BeforeEach
+    public void init() {
+        Storage storage = new Storage();
+        inject(storage, "baseDir", root.toString());
+        storage.init();
+        this.sampler = new HealthSampler();
+        inject(this.sampler, "storage", storage);
+        inject(this.sampler, "store", new ContentStore() {
+            @Override
+            public Optional<Content> peek(Lang lang, ContentType type, String date, String title) {
+                peeked.add(date + "/" + title);
+                return Optional.of(new Content(title, type, "", null, date, null));
+            }
+
+            @Override
+            public ContentFile resolve(Lang lang, ContentType type, String date, String title) {
+                throw new AssertionError("health sampling must not count a hit");
+            }
+        });
+        inject(this.sampler, "stalenessInSeconds", 60L);
+        this.cut = new LivenessCheck();
+        inject(this.cut, "sampler", this.sampler);
+        inject(this.cut, "storageThreshold", 0);
+    }
+
+    @Test
+    public void freshSampleIsUp() {
+        this.sampler.sample();
+        for (HealthCheck check : this.checks()) {
+            HealthCheckResponse response = check.call();
+            assertEquals(HealthCheckResponse.Status.UP, response.getStatus(), response.getName());
+            assertEquals(Optional.of(true), response.getData().map(data -> data.get("fresh")));
+        }
+    }
+
+    @Test
+    public void staleSampleIsDown() {
+        inject(this.sampler, "snapshot", new HealthSnapshot(true, Long.MAX_VALUE, true, Instant.now().minusSeconds(61)));
+        for (HealthCheck check : this.checks()) {
+            HealthCheckResponse response = check.call();
+            assertEquals(HealthCheckResponse.Status.DOWN, response.getStatus(), response.getName());
+            assertEquals(Optional.of(false), response.getData().map(data -> data.get("fresh")));
+        }
+    }
+
+    @Test
+    public void noSampleYetIsDown() {
+        assertEquals(HealthCheckResponse.Status.DOWN, this.cut.initialExists().call().getStatus());
+    }
+
+    @Test
+    public void initialPostIsSampledThroughPeek() {
+        this.sampler.sample();
+        assertEquals(List.of("2016-1-1/JavaNerd blog"), this.peeked);
+        assertTrue(this.sampler.getSnapshot().initialPostExists());
+    }
+
+    private List<HealthCheck> checks() {
+        return List.of(this.cut.checkContentDirectoryExists(), this.cut.checkEnoughSpace(), this.cut.initialExists());
+    }
+
+    /**
+     * The container's provider is not on the test class path.
+     */
+    private static class MapResponseBuilder extends HealthCheckResponseBuilder {
+
+        private final Map<String, Object> data = new HashMap<>();
+
+        private String name;
+
+        private HealthCheckResponse.Status status = HealthCheckResponse.Status.DOWN;
+
+        @Override
+        public HealthCheckResponseBuilder name(String name) {
+            this.name = name;
+            return this;
+        }
+
+        @Override
+        public HealthCheckResponseBuilder withData(String key, String value) {
+            this.data.put(key, value);
+            return this;
+        }
+
+        @Override
+        public HealthCheckResponseBuilder withData(String key, long value) {
+            this.data.put(key, value);
+            return this;
+        }
+
+        @Override
+        public HealthCheckResponseBuilder withData(String key, boolean value) {
+            this.data.put(key, value);
+            return this;
+        }
+
+        @Override
+        public HealthCheckResponseBuilder up() {
+            return this.status(true);
+        }
+
+        @Override
+        public HealthCheckResponseBuilder down() {
+            return this.status(false);
+        }
+
+        @Override
+        public HealthCheckResponseBuilder status(boolean up) {
+            this.status = up ? HealthCheckResponse.Status.UP : HealthCheckResponse.Status.DOWN;
+            return this;
+        }
+
+        @Override
+        public HealthCheckResponse build() {
+            return new HealthCheckResponse(this.name, this.status, Optional.of(Map.copyOf(this.data)));
+        }
+    }
+
+    private static void inject(Object target, String name, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException("Can't inject " + name + " into " + target.getClass(), ex);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2023 Aleksey Popov <alexnerd.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package alexnerd.content.content.boundary;
+
+import alexnerd.content.content.control.ContentEntry;
+import alexnerd.content.content.control.ContentVersion;
+import alexnerd.content.content.control.Encoding;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+import org.glassfish.jersey.internal.MapPropertiesDelegate;
+import org.glassfish.jersey.server.ContainerRequest;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class ContentResourceTest {
+
+    @Test
+    public void gzipWhenAccepted() {
+        assertEquals(Encoding.GZIP, ContentResource.negotiate("deflate, gzip;q=0.8, br"));
+        assertEquals(Encoding.GZIP, ContentResource.negotiate("*"));
+    }
+
+    @Test
+    public void identityWhenMissingOrRejected() {
+        assertEquals(Encoding.IDENTITY, ContentResource.negotiate(null));
+        assertEquals(Encoding.IDENTITY, ContentResource.negotiate("br, deflate"));
+        assertEquals(Encoding.IDENTITY, ContentResource.negotiate("gzip;q=0"));
+        assertEquals(Encoding.IDENTITY, ContentResource.negotiate("gzip; q=0.000"));
+        assertEquals(Encoding.IDENTITY, ContentResource.negotiate("GZIP;Q=0"));
+    }
+
+    @Test
+    public void explicitGzipWinsOverWildcard() {
+        assertEquals(Encoding.IDENTITY, ContentResource.negotiate("gzip;q=0, *"));
+        assertEquals(Encoding.IDENTITY, ContentResource.negotiate("*, gzip;q=0"));
+        assertEquals(Encoding.GZIP, ContentResource.negotiate("*;q=0, gzip"));
+        assertEquals(Encoding.IDENTITY, ContentResource.negotiate("br, *;q=0"));
+    }
+
+    @Test
+    public void listingWithoutItsNewestEntryIsNotNotModified() {
+        ContentEntry older = entry("older", 2000);
+        ContentEntry newest = entry("newest", 3000);
+        Response before = ContentResource.respond(request(null), ContentVersion.of(List.of(newest, older)),
+                Encoding.IDENTITY, () -> "[]");
+        assertNull(before.getLastModified());
+
+        ContentVersion after = ContentVersion.of(List.of(older));
+        assertEquals(200, ContentResource.respond(request("Thu, 01 Jan 2099 00:00:00 GMT"), after,
+                Encoding.IDENTITY, () -> "[]").getStatus());
+        ContainerRequest revalidation = request(null);
+        revalidation.header(HttpHeaders.IF_NONE_MATCH, before.getEntityTag().toString());
+        assertEquals(200, ContentResource.respond(revalidation, after, Encoding.IDENTITY, () -> "[]").getStatus());
+    }
+
+    @Test
+    public void unchangedListingIsNotModified() {
+        ContentVersion version = ContentVersion.of(List.of(entry("newest", 3000)));
+        Response first = ContentResource.respond(request(null), version, Encoding.IDENTITY, () -> "[]");
+        ContainerRequest revalidation = request(null);
+        revalidation.header(HttpHeaders.IF_NONE_MATCH, first.getEntityTag().toString());
+        assertEquals(304, ContentResource.respond(revalidation, version, Encoding.IDENTITY, () -> "[]").getStatus());
+    }
+
+    private static ContainerRequest request(String ifModifiedSince) {
+        ContainerRequest request = new ContainerRequest(URI.create("http://localhost/"), URI.create("http://localhost/last"),
+                "GET", null, new MapPropertiesDelegate(), null);
+        if (ifModifiedSince != null) {
+            request.header(HttpHeaders.IF_MODIFIED_SINCE, ifModifiedSince);
+        }
+        return request;
+    }
+
+    private static ContentEntry entry(String name, long lastModified) {
+        return new ContentEntry(Path.of(name + ".json"), 2023, 1, 1, FileTime.fromMillis(0), 10,
+                FileTime.fromMillis(lastModified));
+    }
+}
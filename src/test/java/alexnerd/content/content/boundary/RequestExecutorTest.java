@@ -0,0 +1,181 @@
+/*
+ * Copyright 2023 Aleksey Popov <alexnerd.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package alexnerd.content.content.boundary;
+
+import alexnerd.content.metrics.ContentMetrics;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RequestExecutorTest {
+
+    private final List<String> metrics = new CopyOnWriteArrayList<>();
+
+    private RequestExecutor cut;
+
+    @AfterEach
+    public void close() {
+        this.cut.close();
+    }
+
+    @Test
+    public void blockingModeResumesOnTheCallingThread() {
+        this.cut = this.create(RequestExecutor.Mode.BLOCKING, 1, 1);
+        CompletableFuture<Object> resumed = new CompletableFuture<>();
+        this.cut.execute("findPost", response(resumed), () -> Response.ok().build());
+        assertTrue(resumed.isDone());
+        assertEquals(200, ((Response) resumed.join()).getStatus());
+        assertTrue(this.metrics.contains("timer:findPost"), this.metrics.toString());
+    }
+
+    @Test
+    public void virtualModeResumesFromAnotherThread() throws Exception {
+        this.cut = this.create(RequestExecutor.Mode.VIRTUAL, 1, 1);
+        Thread caller = Thread.currentThread();
+        CompletableFuture<Object> resumed = new CompletableFuture<>();
+        this.cut.execute("findLast", response(resumed), () -> Response.status(Thread.currentThread() == caller ? 500 : 200).build());
+        assertEquals(200, ((Response) resumed.get(5, TimeUnit.SECONDS)).getStatus());
+        this.awaitMetric("timer:findLast");
+        assertTrue(this.metrics.contains("timer:content_execution_queue_wait"), this.metrics.toString());
+    }
+
+    @Test
+    public void failedTaskResumesWithItsExceptionAndReleasesThePermit() throws Exception {
+        this.cut = this.create(RequestExecutor.Mode.VIRTUAL, 1, 1);
+        CompletableFuture<Object> failed = new CompletableFuture<>();
+        this.cut.execute(response(failed), () -> {
+            throw new IllegalStateException("broken");
+        });
+        assertInstanceOf(IllegalStateException.class, failed.get(5, TimeUnit.SECONDS));
+
+        CompletableFuture<Object> next = new CompletableFuture<>();
+        this.cut.execute(response(next), () -> Response.ok().build());
+        assertEquals(200, ((Response) next.get(5, TimeUnit.SECONDS)).getStatus());
+    }
+
+    @Test
+    public void rejectsBeyondMaxQueued() throws Exception {
+        this.cut = this.create(RequestExecutor.Mode.VIRTUAL, 1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Object> running = new CompletableFuture<>();
+        this.cut.execute(response(running), () -> {
+            started.countDown();
+            await(release);
+            return Response.ok().build();
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Object> waiting = new CompletableFuture<>();
+        this.cut.execute(response(waiting), () -> Response.ok().build());
+
+        CompletableFuture<Object> rejected = new CompletableFuture<>();
+        this.cut.execute(response(rejected), () -> Response.ok().build());
+        assertEquals(503, ((Response) rejected.get(5, TimeUnit.SECONDS)).getStatus());
+        assertTrue(this.metrics.contains("counter:content_execution_rejected"), this.metrics.toString());
+        assertFalse(waiting.isDone());
+
+        release.countDown();
+        assertEquals(200, ((Response) running.get(5, TimeUnit.SECONDS)).getStatus());
+        assertEquals(200, ((Response) waiting.get(5, TimeUnit.SECONDS)).getStatus());
+    }
+
+    /**
+     * The timer is recorded once the response is resumed, on the executing thread.
+     */
+    private void awaitMetric(String metric) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!this.metrics.contains(metric) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(this.metrics.contains(metric), this.metrics.toString());
+    }
+
+    private RequestExecutor create(RequestExecutor.Mode mode, int maxConcurrency, int maxQueued) {
+        ContentMetrics contentMetrics = new ContentMetrics();
+        inject(contentMetrics, "registry", this.recording());
+        RequestExecutor executor = new RequestExecutor();
+        executor.mode = mode;
+        executor.maxConcurrency = maxConcurrency;
+        executor.maxQueued = maxQueued;
+        inject(executor, "contentMetrics", contentMetrics);
+        executor.init();
+        return executor;
+    }
+
+    private MetricRegistry recording() {
+        return (MetricRegistry) Proxy.newProxyInstance(MetricRegistry.class.getClassLoader(), new Class<?>[]{MetricRegistry.class},
+                (proxy, method, args) -> {
+                    if (args != null && args.length > 0 && args[0] instanceof String name) {
+                        this.metrics.add(method.getName() + ":" + name);
+                    }
+                    Class<?> returnType = method.getReturnType();
+                    return returnType.isInterface() ? noop(returnType) : null;
+                });
+    }
+
+    private static Object noop(Class<?> type) {
+        return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) ->
+                method.getReturnType().isPrimitive() && method.getReturnType() != void.class
+                        ? Array.get(Array.newInstance(method.getReturnType(), 1), 0)
+                        : null);
+    }
+
+    private static AsyncResponse response(CompletableFuture<Object> resumed) {
+        return (AsyncResponse) Proxy.newProxyInstance(AsyncResponse.class.getClassLoader(), new Class<?>[]{AsyncResponse.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("resume")) {
+                        return resumed.complete(args[0]);
+                    }
+                    return method.getReturnType() == boolean.class ? false : null;
+                });
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void inject(Object target, String name, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException("Can't inject " + name + " into " + target.getClass(), ex);
+        }
+    }
+}
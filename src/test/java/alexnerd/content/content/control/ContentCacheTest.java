@@ -0,0 +1,204 @@
+/*
+ * Copyright 2023 Aleksey Popov <alexnerd.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package alexnerd.content.content.control;
+
+import alexnerd.content.content.control.ContentCache.ListingKey;
+import alexnerd.content.content.control.enums.Lang;
+import alexnerd.content.content.entity.enums.ContentType;
+import alexnerd.content.metrics.ContentMetrics;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Random;
+
+import static alexnerd.content.content.control.ContentStoreTest.inject;
+import static alexnerd.content.content.control.ContentStoreTest.noop;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ContentCacheTest {
+
+    private static final FileTime MODIFIED = FileTime.fromMillis(1000);
+
+    private ContentCache cut;
+
+    @BeforeEach
+    public void init() {
+        this.cut = create(false);
+    }
+
+    @Test
+    public void usedBytesFollowPutsAndReplacements() {
+        this.cut.put(key("a"), path("a"), MODIFIED, new byte[30]);
+        this.cut.put(key("b"), path("b"), MODIFIED, new byte[20]);
+        assertEquals(50, this.cut.getUsedBytes());
+        this.cut.put(key("a"), path("a"), MODIFIED, new byte[10]);
+        assertEquals(30, this.cut.getUsedBytes());
+        this.cut.put(key("a"), Encoding.GZIP, path("a"), MODIFIED, new byte[5]);
+        assertEquals(35, this.cut.getUsedBytes());
+    }
+
+    @Test
+    public void leastRecentlyUsedIsEvictedAtTheBudget() {
+        this.cut.put(key("a"), path("a"), MODIFIED, new byte[40]);
+        this.cut.put(key("b"), path("b"), MODIFIED, new byte[40]);
+        assertTrue(this.cut.get(key("a"), MODIFIED).isPresent());
+        this.cut.put(key("c"), path("c"), MODIFIED, new byte[40]);
+
+        assertTrue(this.cut.get(key("a"), MODIFIED).isPresent());
+        assertTrue(this.cut.get(key("b"), MODIFIED).isEmpty());
+        assertTrue(this.cut.get(key("c"), MODIFIED).isPresent());
+        assertEquals(80, this.cut.getUsedBytes());
+    }
+
+    @Test
+    public void entryLargerThanTheBudgetIsNotCached() {
+        this.cut.put(key("a"), path("a"), MODIFIED, new byte[40]);
+        this.cut.put(key("b"), path("b"), MODIFIED, new byte[101]);
+
+        assertTrue(this.cut.get(key("a"), MODIFIED).isPresent());
+        assertTrue(this.cut.get(key("b"), MODIFIED).isEmpty());
+        assertEquals(40, this.cut.getUsedBytes());
+    }
+
+    @Test
+    public void changedModificationTimeDropsTheEntry() {
+        this.cut.put(key("a"), path("a"), MODIFIED, new byte[]{1});
+
+        assertTrue(this.cut.get(key("a"), FileTime.fromMillis(2000)).isEmpty());
+        assertTrue(this.cut.get(key("a"), MODIFIED).isEmpty());
+        assertEquals(0, this.cut.getUsedBytes());
+    }
+
+    @Test
+    public void contentChangeDropsAffectedEntriesOnly() {
+        this.cut.put(key("a"), path("a"), MODIFIED, new byte[10]);
+        this.cut.put(key("a"), Encoding.GZIP, path("a"), MODIFIED, new byte[5]);
+        this.cut.put(key("b"), path("b"), MODIFIED, new byte[20]);
+        this.cut.markValidated(path("a"), MODIFIED);
+
+        this.cut.onChange(new ContentChange(path("a")));
+
+        assertTrue(this.cut.get(key("a"), MODIFIED).isEmpty());
+        assertTrue(this.cut.get(key("a"), Encoding.GZIP, MODIFIED).isEmpty());
+        assertFalse(this.cut.isValidated(path("a"), MODIFIED));
+        assertTrue(this.cut.get(key("b"), MODIFIED).isPresent());
+        assertEquals(20, this.cut.getUsedBytes());
+    }
+
+    @Test
+    public void directoryChangeDropsEverythingBelow() {
+        this.cut.put(key("a"), path("a"), MODIFIED, new byte[10]);
+        this.cut.put(key("b"), path("b"), MODIFIED, new byte[20]);
+
+        this.cut.onChange(new ContentChange(path("a").getParent()));
+
+        assertTrue(this.cut.get(key("a"), MODIFIED).isEmpty());
+        assertTrue(this.cut.get(key("b"), MODIFIED).isEmpty());
+        assertEquals(0, this.cut.getUsedBytes());
+    }
+
+    @Test
+    public void listingsCountAgainstTheBudget() {
+        ListingKey listing = new ListingKey(Lang.RU, ContentType.POST, 10, Encoding.IDENTITY);
+        this.cut.putListing(listing, "v1", new byte[60]);
+        assertEquals(60, this.cut.getUsedBytes());
+        this.cut.put(key("a"), path("a"), MODIFIED, new byte[60]);
+        assertEquals(60, this.cut.getUsedBytes());
+        assertTrue(this.cut.getListing(listing, "v1").isEmpty());
+    }
+
+    @Test
+    public void listingIsServedWhileItsTagMatches() {
+        ListingKey listing = new ListingKey(Lang.RU, ContentType.POST, 10, Encoding.IDENTITY);
+        this.cut.putListing(listing, "v1", new byte[]{1, 2});
+        assertArrayEquals(new byte[]{1, 2}, this.cut.getListing(listing, "v1").orElseThrow());
+        assertTrue(this.cut.getListing(listing, "v2").isEmpty());
+        assertEquals(0, this.cut.getUsedBytes());
+    }
+
+    @Test
+    public void offHeapGetReturnsACopy() {
+        ContentCache offHeap = create(true);
+        offHeap.put(key("a"), path("a"), MODIFIED, new byte[]{1, 2, 3});
+
+        byte[] first = offHeap.get(key("a"), MODIFIED).orElseThrow();
+        first[0] = 9;
+
+        assertArrayEquals(new byte[]{1, 2, 3}, offHeap.get(key("a"), MODIFIED).orElseThrow());
+        assertEquals(3, offHeap.getUsedBytes());
+    }
+
+    @Test
+    public void offHeapPayloadIsStreamedWholeOnEveryWrite() throws IOException {
+        ContentCache offHeap = create(true);
+        offHeap.maxBytes = 100_000;
+        byte[] json = new byte[20_000];
+        new Random(7).nextBytes(json);
+        offHeap.put(key("a"), Encoding.GZIP, path("a"), MODIFIED, json);
+
+        ContentPayload payload = offHeap.getPayload(key("a"), Encoding.GZIP, MODIFIED).orElseThrow();
+
+        assertNull(payload.json());
+        assertEquals(Encoding.GZIP, payload.encoding());
+        assertArrayEquals(json, write(payload));
+        assertArrayEquals(json, write(payload));
+    }
+
+    @Test
+    public void heapPayloadIsTheCachedArray() {
+        byte[] json = {1, 2, 3};
+        this.cut.put(key("a"), path("a"), MODIFIED, json);
+
+        ContentPayload payload = this.cut.getPayload(key("a"), Encoding.IDENTITY, MODIFIED).orElseThrow();
+
+        assertSame(json, payload.entity());
+    }
+
+    static byte[] write(ContentPayload payload) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        payload.stream().write(output);
+        return output.toByteArray();
+    }
+
+    static ContentCache create(boolean offHeap) {
+        ContentMetrics contentMetrics = new ContentMetrics();
+        inject(contentMetrics, "registry", noop(MetricRegistry.class));
+        ContentCache cache = new ContentCache();
+        cache.maxBytes = 100;
+        cache.offHeap = offHeap;
+        inject(cache, "contentMetrics", contentMetrics);
+        return cache;
+    }
+
+    static ContentKey key(String name) {
+        return new ContentKey(Lang.RU, ContentType.POST, "2023-10-1", name);
+    }
+
+    static Path path(String name) {
+        return Path.of("/storage/RU/posts/2023/10/1", name + ".json");
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2023 Aleksey Popov <alexnerd.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package alexnerd.content.content.control;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ContentCatalogTest {
+    @TempDir
+    Path temp;
+
+    private Path root;
+
+    private ContentCatalog cut;
+
+    @BeforeEach
+    public void init() {
+        this.root = temp.resolve("storage");
+        this.cut = new ContentCatalog();
+        this.cut.baseDir = root.toString();
+        this.cut.enabled = true;
+        this.cut.file = Optional.empty();
+    }
+
+    @Test
+    public void writtenNextToStorage() {
+        this.cut.write(root, Map.of(), List.of());
+        assertTrue(Files.isRegularFile(temp.resolve("storage.catalog")));
+    }
+
+    @Test
+    public void readsWhatWasWritten() {
+        Path day = root.resolve("RU/posts/2023/10/1");
+        FileTime dayTime = FileTime.fromMillis(1_696_118_400_123L);
+        ContentEntry entry = new ContentEntry(day.resolve("october.json"), 2023, 10, 1,
+                FileTime.fromMillis(1_696_118_400_000L), 42, FileTime.fromMillis(1_696_118_400_456L));
+        this.cut.write(root, Map.of(day, dayTime, day.getParent(), FileTime.fromMillis(7)), List.of(entry));
+
+        ContentCatalog.Snapshot snapshot = this.cut.read(root).orElseThrow();
+        assertTrue(snapshot.isUnchanged(day, dayTime));
+        assertEquals(List.of(day), snapshot.children(day.getParent()));
+        assertEquals(List.of(entry), snapshot.entries(day));
+    }
+
+    @Test
+    public void missingCatalogIsEmpty() {
+        assertFalse(this.cut.read(root).isPresent());
+    }
+
+    @Test
+    public void unknownFormatIsEmpty() throws Exception {
+        Files.writeString(temp.resolve("storage.catalog"), "not a catalog");
+        assertFalse(this.cut.read(root).isPresent());
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2023 Aleksey Popov <alexnerd.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package alexnerd.content.content.control;
+
+import alexnerd.content.content.control.enums.Lang;
+import alexnerd.content.content.entity.enums.ContentType;
+import jakarta.enterprise.event.Event;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ContentIndexTest {
+    @TempDir
+    Path root;
+
+    private ContentIndex cut;
+
+    private final List<Path> fired = new ArrayList<>();
+
+    @BeforeEach
+    public void init() throws IOException {
+        createPost("2022/12/31", "old");
+        createPost("2023/2/1", "february");
+        createPost("2023/10/1", "october");
+        createPost("2023/10/notADay", "ignored");
+        this.cut = new ContentIndex();
+        this.cut.baseDir = root.toString();
+        this.cut.backend = new FileTreeBackend();
+        this.cut.changes = recording(this.fired);
+        this.cut.init();
+    }
+
+    @Test
+    public void lastIsOrderedByDateDescending() {
+        List<String> actual = this.cut.last(Lang.RU, ContentType.POST, 10).stream()
+                .map(entry -> entry.path().getFileName().toString())
+                .toList();
+        assertEquals(List.of("october.json", "february.json", "old.json"), actual);
+    }
+
+    @Test
+    public void lastIsLimited() {
+        assertEquals(2, this.cut.last(Lang.RU, ContentType.POST, 2).size());
+    }
+
+    @Test
+    public void pageContinuesAfterCursor() {
+        List<ContentEntry> first = this.cut.page(Lang.RU, ContentType.POST, null, 2);
+        ContentCursor cursor = ContentCursor.decode(ContentCursor.of(first.get(1)).encode());
+        List<ContentEntry> second = this.cut.page(Lang.RU, ContentType.POST, cursor, 2);
+        assertEquals(1, second.size());
+        assertEquals("old.json", second.get(0).path().getFileName().toString());
+    }
+
+    @Test
+    public void rangeIsInclusive() {
+        List<String> actual = this.cut.range(Lang.RU, ContentType.POST, LocalDate.of(2022, 12, 31),
+                        LocalDate.of(2023, 2, 1), null, 10).stream()
+                .map(entry -> entry.path().getFileName().toString())
+                .toList();
+        assertEquals(List.of("february.json", "old.json"), actual);
+    }
+
+    @Test
+    public void cursorWithInvalidNameIsRejected() {
+        for (String name : List.of("old\u0000.json", "../old.json", "2023/old.json")) {
+            String encoded = Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(("2023|10|1|2023-10-01T00:00:00Z|" + name).getBytes(StandardCharsets.UTF_8));
+            StorageException thrown = assertThrows(StorageException.class, () -> ContentCursor.decode(encoded));
+            assertEquals(400, thrown.getResponse().getStatus(), name);
+        }
+    }
+
+    @Test
+    public void rangeContinuesAfterCursor() {
+        LocalDate from = LocalDate.of(2023, 1, 1);
+        LocalDate to = LocalDate.of(2023, 12, 31);
+        List<ContentEntry> first = this.cut.range(Lang.RU, ContentType.POST, from, to, null, 1);
+        List<ContentEntry> second = this.cut.range(Lang.RU, ContentType.POST, from, to, ContentCursor.of(first.get(0)), 10);
+        assertEquals(List.of("february.json"), second.stream().map(entry -> entry.path().getFileName().toString()).toList());
+        assertTrue(this.cut.range(Lang.RU, ContentType.POST, from, to, ContentCursor.of(second.get(0)), 10).isEmpty());
+    }
+
+    @Test
+    public void missingDirectoryIsEmpty() {
+        assertTrue(this.cut.last(Lang.RU, ContentType.ARTICLE, 10).isEmpty());
+    }
+
+    @Test
+    public void unchangedRescanFiresNothing() {
+        this.cut.last(Lang.RU, ContentType.POST, 10);
+        this.cut.rescan();
+        assertTrue(this.fired.isEmpty());
+    }
+
+    @Test
+    public void rescanFiresChangedFilesOnly() throws IOException {
+        this.cut.last(Lang.RU, ContentType.POST, 10);
+        Path october = createPost("2023/10/1", "october");
+        Files.writeString(october, "{\"title\":\"october\"}");
+        Path created = createPost("2023/11/1", "november");
+        Path removed = root.resolve("RU/posts/2023/2/1/february.json");
+        Files.delete(removed);
+        this.cut.rescan();
+        assertEquals(Set.of(october, created, removed), Set.copyOf(this.fired));
+    }
+
+    @Test
+    public void onlyDirectoriesChangedBehindTheSnapshotAreRescanned() throws IOException {
+        ContentCatalog catalog = new ContentCatalog();
+        catalog.baseDir = root.toString();
+        catalog.enabled = true;
+        catalog.file = Optional.of(root.resolveSibling(root.getFileName() + ".catalog").toString());
+        ContentStoreTest.inject(this.cut, "catalog", catalog);
+        this.cut.load();
+
+        Path october = root.resolve("RU/posts/2023/10/1/october.json");
+        FileTime directoryModified = Files.getLastModifiedTime(october.getParent());
+        Files.writeString(october, "{\"title\":\"october, edited\"}");
+        Files.setLastModifiedTime(october.getParent(), directoryModified);
+        Path march = createPost("2023/2/1", "march");
+
+        ContentIndex restarted = new ContentIndex();
+        restarted.baseDir = root.toString();
+        restarted.backend = new FileTreeBackend();
+        restarted.changes = recording(this.fired);
+        ContentStoreTest.inject(restarted, "catalog", catalog);
+        restarted.init();
+        restarted.load();
+
+        assertTrue(restarted.find(march).isPresent());
+        assertEquals(2, restarted.find(october).orElseThrow().size());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Event<ContentChange> recording(List<Path> fired) {
+        return (Event<ContentChange>) Proxy.newProxyInstance(Event.class.getClassLoader(), new Class<?>[]{Event.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("fire")) {
+                        fired.add(((ContentChange) args[0]).path());
+                    }
+                    return null;
+                });
+    }
+
+    private Path createPost(String date, String name) throws IOException {
+        Path directory = root.resolve(Lang.RU.name()).resolve(ContentType.POST.getBaseDir()).resolve(date);
+        Files.createDirectories(directory);
+        return Files.writeString(directory.resolve(name + ".json"), "{}");
+    }
+}
@@ -16,6 +16,215 @@
 
 package alexnerd.content.content.control;
 
+import alexnerd.content.content.control.adapters.JsonMapper;
+import alexnerd.content.content.control.enums.Lang;
+import alexnerd.content.content.entity.Content;
+import alexnerd.content.content.entity.ContentReference;
+import alexnerd.content.content.entity.enums.ContentType;
+import alexnerd.content.metrics.ContentMetrics;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
 public class ContentStoreTest {
-    //TODO: add tests
+    @TempDir
+    Path root;
+
+    private ContentStore cut;
+
+    private ParallelReader reader;
+
+    private ContentCache cache;
+
+    private HotSet hotSet;
+
+    @BeforeEach
+    public void init() throws IOException {
+        createPost("2023-10-1", "good", JsonMapper.save(new Content("good", ContentType.POST, "body", "java", "2023-10-1", "good")));
+        createPost("2023-10-1", "broken", "{\"title\":");
+
+        TitleNormalizer normalizer = new TitleNormalizer();
+        normalizer.titleSeparator = "-";
+        normalizer.memoSize = 16;
+        normalizer.init();
+
+        ContentIndex index = new ContentIndex();
+        index.baseDir = root.toString();
+        index.backend = new FileTreeBackend();
+        index.init();
+
+        Storage storage = new Storage();
+        inject(storage, "baseDir", root.toString());
+        inject(storage, "index", index);
+        inject(storage, "backend", index.backend);
+        storage.init();
+
+        this.hotSet = new HotSet();
+        hotSet.baseDir = root.toString();
+        hotSet.size = 16;
+        hotSet.file = Optional.empty();
+        hotSet.init();
+
+        ContentMetrics contentMetrics = new ContentMetrics();
+        inject(contentMetrics, "storage", storage);
+        inject(contentMetrics, "registry", noop(MetricRegistry.class));
+        inject(contentMetrics, "hotSet", hotSet);
+        inject(contentMetrics, "topHits", 10);
+        inject(contentMetrics, "stagePercentiles", List.of(0.5));
+
+        this.cache = new ContentCache();
+        cache.maxBytes = 1 << 20;
+        inject(cache, "contentMetrics", contentMetrics);
+
+        this.reader = new ParallelReader();
+        this.reader.parallelism = 2;
+        this.reader.init();
+
+        MissingContentCache missingContent = new MissingContentCache();
+        missingContent.maxEntries = 16;
+        missingContent.ttlInSeconds = 60;
+        inject(missingContent, "contentMetrics", contentMetrics);
+
+        this.cut = new ContentStore();
+        inject(cut, "normalizer", normalizer);
+        inject(cut, "contentMetrics", contentMetrics);
+        inject(cut, "storage", storage);
+        inject(cut, "cache", cache);
+        inject(cut, "reader", reader);
+        inject(cut, "missingContent", missingContent);
+        inject(cut, "teasers", new TeaserIndex());
+        this.cut.streamingThreshold = 131072;
+    }
+
+    @AfterEach
+    public void close() {
+        this.reader.close();
+    }
+
+    @Test
+    public void brokenBatchItemDoesNotFailTheBatch() {
+        List<String> items = this.cut.readBatch(Lang.RU, ContentType.POST, List.of(
+                        new ContentReference("2023-10-1", "good"),
+                        new ContentReference("2023-10-1", "broken"),
+                        new ContentReference("2023-10-1", "missing")))
+                .stream()
+                .map(item -> new String(item, StandardCharsets.UTF_8))
+                .toList();
+        assertTrue(items.get(0).contains("\"status\":200"), items.get(0));
+        assertTrue(items.get(1).contains("\"status\":500"), items.get(1));
+        assertEquals("{\"date\":\"2023-10-1\",\"title\":\"missing\",\"status\":404}", items.get(2));
+    }
+
+    @Test
+    public void largeFilesInListingsAreNotCached() {
+        List<ContentEntry> good = this.cut.lastEntries(Lang.RU, ContentType.POST, 10).stream()
+                .filter(entry -> entry.path().getFileName().toString().equals("good.json"))
+                .toList();
+        this.cut.streamingThreshold = 10;
+        assertEquals(1, this.cut.readJson(Lang.RU, ContentType.POST, good).size());
+        assertEquals(0, this.cache.getUsedBytes());
+        this.cut.streamingThreshold = 131072;
+        this.cut.readJson(Lang.RU, ContentType.POST, good);
+        assertEquals(good.get(0).size(), this.cache.getUsedBytes());
+    }
+
+    @Test
+    public void largeFileIsStreamedFromDisk() throws IOException {
+        ContentFile file = this.cut.resolve(Lang.RU, ContentType.POST, "2023-10-1", "good");
+        this.cut.streamingThreshold = 10;
+
+        ContentPayload payload = this.cut.readPayload(file, Encoding.IDENTITY);
+
+        assertNull(payload.json());
+        assertArrayEquals(Files.readAllBytes(file.path()), ContentCacheTest.write(payload));
+        assertEquals(0, this.cache.getUsedBytes());
+        assertTrue(this.cache.isValidated(file.path(), file.lastModified()));
+    }
+
+    @Test
+    public void dateAliasesResolveToOneKey() {
+        ContentKey key = this.cut.resolve(Lang.RU, ContentType.POST, "2023-10-1", "good").key();
+        assertEquals("2023-10-1", key.date());
+        assertEquals(key, this.cut.resolve(Lang.RU, ContentType.POST, "2023-10-01", "good").key());
+        assertEquals(key, this.cut.resolve(Lang.RU, ContentType.POST, "2023-010-001", "good").key());
+    }
+
+    @Test
+    public void malformedDatesAreRejected() {
+        for (String date : List.of("2023-10-1-.", "2023-10-1-.-.", "2023-10", "2023-2-30", "2023-13-1", "-1-1-1", "2023/10/1")) {
+            StorageException thrown = assertThrows(StorageException.class,
+                    () -> this.cut.resolve(Lang.RU, ContentType.POST, date, "good"), date);
+            assertEquals(400, thrown.getResponse().getStatus(), date);
+        }
+    }
+
+    @Test
+    public void peekCountsNoHitAndCachesNothing() {
+        assertEquals("good", this.cut.peek(Lang.RU, ContentType.POST, "2023-10-1", "good").orElseThrow().title());
+        assertTrue(this.cut.peek(Lang.RU, ContentType.POST, "2023-10-1", "missing").isEmpty());
+        assertEquals(0, this.hotSet.count(new ContentKey(Lang.RU, ContentType.POST, "2023-10-1", "good")));
+        assertEquals(0, this.cache.getUsedBytes());
+
+        this.cut.resolve(Lang.RU, ContentType.POST, "2023-10-1", "good");
+        assertEquals(1, this.hotSet.count(new ContentKey(Lang.RU, ContentType.POST, "2023-10-1", "good")));
+    }
+
+    private void createPost(String date, String name, String json) throws IOException {
+        Path directory = root.resolve(Lang.RU.name()).resolve(ContentType.POST.getBaseDir());
+        for (String part : date.split("-")) {
+            directory = directory.resolve(part);
+        }
+        Files.createDirectories(directory);
+        Files.writeString(directory.resolve(name + ".json"), json);
+    }
+
+    static void inject(Object target, String name, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException("Can't inject " + name + " into " + target.getClass(), ex);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> T noop(Class<T> type) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            Class<?> returnType = method.getReturnType();
+            if (returnType.isInterface()) {
+                return noop(returnType);
+            }
+            if (returnType == boolean.class) {
+                return false;
+            }
+            if (returnType == long.class) {
+                return 0L;
+            }
+            if (returnType == double.class) {
+                return 0.0;
+            }
+            if (returnType.isPrimitive() && returnType != void.class) {
+                return 0;
+            }
+            return null;
+        });
+    }
 }
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2023 Aleksey Popov <alexnerd.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package alexnerd.content.content.control;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class ContentVersionTest {
+
+    @Test
+    public void sameAttributesSameTag() {
+        assertEquals(ContentVersion.of(FileTime.fromMillis(1000), 42).tag(),
+                ContentVersion.of(FileTime.fromMillis(1000), 42).tag());
+    }
+
+    @Test
+    public void listingTagChangesWithModifiedEntry() {
+        ContentEntry first = entry("first", 1000);
+        ContentEntry second = entry("second", 2000);
+        ContentVersion before = ContentVersion.of(List.of(first, second));
+        ContentVersion after = ContentVersion.of(List.of(first, entry("second", 3000)));
+        assertNotEquals(before.tag(), after.tag());
+        assertNull(after.lastModified());
+    }
+
+    @Test
+    public void listingTagChangesWithOrder() {
+        ContentEntry first = entry("first", 1000);
+        ContentEntry second = entry("second", 2000);
+        assertNotEquals(ContentVersion.of(List.of(first, second)).tag(),
+                ContentVersion.of(List.of(second, first)).tag());
+    }
+
+    private static ContentEntry entry(String name, long lastModified) {
+        return new ContentEntry(Path.of(name + ".json"), 2023, 1, 1, FileTime.fromMillis(0), 10,
+                FileTime.fromMillis(lastModified));
+    }
+}
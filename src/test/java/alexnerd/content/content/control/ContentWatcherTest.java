@@ -0,0 +1,212 @@
+/*
+ * Copyright 2023 Aleksey Popov <alexnerd.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package alexnerd.content.content.control;
+
+import alexnerd.content.content.control.ContentCache.ListingKey;
+import alexnerd.content.content.control.enums.Lang;
+import alexnerd.content.content.entity.enums.ContentType;
+import alexnerd.content.metrics.ContentMetrics;
+import jakarta.enterprise.concurrent.ManagedScheduledExecutorService;
+import jakarta.enterprise.concurrent.ManagedThreadFactory;
+import jakarta.enterprise.event.Event;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static alexnerd.content.content.control.ContentStoreTest.inject;
+import static alexnerd.content.content.control.ContentStoreTest.noop;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ContentWatcherTest {
+    @TempDir
+    Path root;
+
+    private final ScheduledExecutorService executor = new ScheduledThreadPoolExecutor(1);
+
+    private final List<String> scheduled = new CopyOnWriteArrayList<>();
+
+    private ContentIndex index;
+
+    private ContentCache cache;
+
+    private ContentMetrics contentMetrics;
+
+    private ContentWatcher cut;
+
+    @BeforeEach
+    public void init() throws IOException {
+        createPost("2023/10/1", "old");
+        this.cache = ContentCacheTest.create(false);
+        this.contentMetrics = new ContentMetrics();
+        inject(this.contentMetrics, "registry", noop(MetricRegistry.class));
+
+        ContentCatalog catalog = new ContentCatalog();
+        catalog.baseDir = root.toString();
+        catalog.enabled = false;
+        catalog.file = Optional.empty();
+
+        this.index = new ContentIndex();
+        this.index.baseDir = root.toString();
+        this.index.backend = new FileTreeBackend();
+        this.index.changes = dispatching(this.cache);
+        inject(this.index, "catalog", catalog);
+        this.index.init();
+        this.index.load();
+    }
+
+    @AfterEach
+    public void stop() {
+        this.cut.stop();
+        this.executor.shutdownNow();
+    }
+
+    @Test
+    public void createdAndDeletedFilesReachTheIndexAndTheCaches() throws Exception {
+        this.cut = this.create(this.index.backend);
+        Path old = root.resolve("RU/posts/2023/10/1/old.json");
+        ContentKey oldKey = new ContentKey(Lang.RU, ContentType.POST, "2023-10-1", "old");
+        this.cache.put(oldKey, old, Files.getLastModifiedTime(old), new byte[]{1});
+        ListingKey listing = new ListingKey(Lang.RU, ContentType.POST, 10, Encoding.IDENTITY);
+        this.cache.putListing(listing, this.listingTag(), new byte[]{2});
+
+        Path created = createPost("2023/11/5", "created");
+        awaitTrue(() -> this.index.find(created).isPresent());
+        assertEquals(List.of("created.json", "old.json"), this.names());
+        assertTrue(this.cache.getListing(listing, this.listingTag()).isEmpty());
+
+        Path inNewDirectory = createPost("2023/11/5", "second");
+        awaitTrue(() -> this.index.find(inNewDirectory).isPresent());
+
+        Files.delete(old);
+        awaitTrue(() -> this.index.find(old).isEmpty());
+        assertEquals(Set.of("created.json", "second.json"), Set.copyOf(this.names()));
+        assertTrue(this.cache.get(oldKey, FileTime.fromMillis(0)).isEmpty());
+        assertEquals(0, this.cache.getUsedBytes());
+    }
+
+    @Test
+    public void refreshLagIsMeasuredFromTheFileTime() throws Exception {
+        this.cut = this.create(this.index.backend);
+        Path created = createPost("2023/10/1", "late");
+        awaitTrue(() -> this.index.find(created).isPresent());
+        Files.setLastModifiedTime(created, FileTime.from(Instant.now().minusSeconds(60)));
+        awaitTrue(() -> this.contentMetrics.getContentRefreshLag() >= 60_000);
+    }
+
+    @Test
+    public void unwatchableBackendIsRescannedPeriodically() {
+        this.cut = this.create(new FileTreeBackend() {
+            @Override
+            public boolean isWatchable() {
+                return false;
+            }
+        });
+        assertEquals(List.of("scheduleWithFixedDelay:300"), this.scheduled);
+    }
+
+    private ContentWatcher create(StorageBackend backend) {
+        Storage storage = new Storage();
+        inject(storage, "baseDir", root.toString());
+        storage.init();
+        ContentWatcher watcher = new ContentWatcher();
+        inject(watcher, "storage", storage);
+        inject(watcher, "index", this.index);
+        inject(watcher, "contentMetrics", this.contentMetrics);
+        inject(watcher, "backend", backend);
+        inject(watcher, "threadFactory", threads());
+        inject(watcher, "scheduler", this.scheduler());
+        inject(watcher, "enabled", true);
+        inject(watcher, "rescanIntervalInSeconds", 300L);
+        watcher.onStart(null);
+        return watcher;
+    }
+
+    private String listingTag() {
+        return ContentVersion.of(this.index.last(Lang.RU, ContentType.POST, 10)).tag();
+    }
+
+    private List<String> names() {
+        return this.index.last(Lang.RU, ContentType.POST, 10).stream()
+                .map(entry -> entry.path().getFileName().toString())
+                .toList();
+    }
+
+    private Path createPost(String date, String name) throws IOException {
+        Path directory = root.resolve(Lang.RU.name()).resolve(ContentType.POST.getBaseDir()).resolve(date);
+        Files.createDirectories(directory);
+        return Files.writeString(directory.resolve(name + ".json"), "{}");
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met in time");
+            Thread.sleep(20);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Event<ContentChange> dispatching(ContentCache cache) {
+        return (Event<ContentChange>) Proxy.newProxyInstance(Event.class.getClassLoader(), new Class<?>[]{Event.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("fire")) {
+                        cache.onChange((ContentChange) args[0]);
+                    }
+                    return null;
+                });
+    }
+
+    private static ManagedThreadFactory threads() {
+        return (ManagedThreadFactory) Proxy.newProxyInstance(ManagedThreadFactory.class.getClassLoader(),
+                new Class<?>[]{ManagedThreadFactory.class},
+                (proxy, method, args) -> Thread.ofPlatform().daemon().unstarted((Runnable) args[0]));
+    }
+
+    private ManagedScheduledExecutorService scheduler() {
+        return (ManagedScheduledExecutorService) Proxy.newProxyInstance(ManagedScheduledExecutorService.class.getClassLoader(),
+                new Class<?>[]{ManagedScheduledExecutorService.class}, (proxy, method, args) -> {
+                    if (method.getName().startsWith("schedule")) {
+                        this.scheduled.add(method.getName() + ":" + args[1]);
+                    }
+                    try {
+                        return method.invoke(this.executor, args);
+                    } catch (InvocationTargetException ex) {
+                        throw ex.getCause();
+                    }
+                });
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2023 Aleksey Popov <alexnerd.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package alexnerd.content.content.control;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+public class FileTreeBackendTest {
+    @TempDir
+    Path root;
+
+    private final FileTreeBackend cut = new FileTreeBackend();
+
+    @Test
+    public void streamsWholeFile() throws IOException {
+        Path file = this.create(100_000);
+        ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+        this.cut.stream(file).write(streamed);
+        assertArrayEquals(Files.readAllBytes(file), streamed.toByteArray());
+    }
+
+    @Test
+    public void fileTruncatedWhileStreamingFails() throws IOException {
+        Path file = this.create(1_000_000);
+        OutputStream truncating = new OutputStream() {
+            @Override
+            public void write(int b) {
+                this.write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                    channel.truncate(10);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }
+        };
+        assertTimeoutPreemptively(Duration.ofSeconds(10),
+                () -> assertThrows(EOFException.class, () -> this.cut.stream(file).write(truncating)));
+    }
+
+    private Path create(int size) throws IOException {
+        byte[] content = new byte[size];
+        for (int i = 0; i < size; i++) {
+            content[i] = (byte) ('a' + i % 26);
+        }
+        return Files.write(this.root.resolve("post.json"), content);
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2023 Aleksey Popov <alexnerd.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package alexnerd.content.content.control;
+
+import alexnerd.content.content.control.enums.Lang;
+import alexnerd.content.content.entity.enums.ContentType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HotSetTest {
+    @TempDir
+    Path root;
+
+    private static final ContentKey POPULAR = new ContentKey(Lang.RU, ContentType.POST, "2023-10-1", "popular");
+    private static final ContentKey RARE = new ContentKey(Lang.RU, ContentType.ARTICLE, "2023-2-1", "rare");
+
+    @Test
+    public void restoresPersistedHotSet() {
+        HotSet previous = create(2);
+        previous.hit(RARE);
+        for (int i = 0; i < 4; i++) {
+            previous.hit(POPULAR);
+        }
+        previous.save();
+
+        HotSet restored = create(2);
+        assertEquals(List.of(POPULAR, RARE), restored.top());
+        restored.hit(RARE);
+        restored.hit(RARE);
+        assertEquals(List.of(RARE, POPULAR), restored.top());
+    }
+
+    @Test
+    public void keepsOnlyTheConfiguredSize() {
+        HotSet hotSet = create(1);
+        hotSet.hit(POPULAR);
+        hotSet.hit(POPULAR);
+        hotSet.hit(RARE);
+        assertEquals(List.of(POPULAR), hotSet.top());
+    }
+
+    @Test
+    public void sizeZeroTurnsTrackingOff() {
+        HotSet hotSet = create(0);
+        hotSet.hit(POPULAR);
+        assertTrue(hotSet.top().isEmpty());
+        assertEquals(0, hotSet.count(POPULAR));
+        hotSet.save();
+        assertFalse(Files.exists(hotSet.getHotSetPath()));
+    }
+
+    @Test
+    public void ignoresUnreadableFile() throws IOException {
+        Files.writeString(root.resolve("storage.hotset"), "garbage\n");
+        assertTrue(create(2).top().isEmpty());
+    }
+
+    private HotSet create(int size) {
+        HotSet hotSet = new HotSet();
+        hotSet.baseDir = root.resolve("storage").toString();
+        hotSet.size = size;
+        hotSet.file = Optional.empty();
+        hotSet.init();
+        return hotSet;
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2023 Aleksey Popov <alexnerd.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package alexnerd.content.content.control;
+
+import alexnerd.content.content.entity.SearchHit;
+import alexnerd.content.content.entity.SearchResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class InvertedIndexTest {
+    private InvertedIndex cut;
+
+    @BeforeEach
+    public void init() {
+        this.cut = new InvertedIndex();
+        this.put("java", Map.of("java", 3, "jvm", 1), 10);
+        this.put("jvm", Map.of("java", 1, "jvm", 5), 10);
+        this.put("go", Map.of("go", 4), 10);
+    }
+
+    @Test
+    public void moreFrequentTermRanksFirst() {
+        assertEquals(List.of("jvm", "java"), titles(this.cut.search(List.of("jvm"), 0, 10)));
+    }
+
+    @Test
+    public void totalCountsEveryMatch() {
+        SearchResult result = this.cut.search(List.of("java", "go"), 0, 1);
+        assertEquals(3, result.total());
+        assertEquals(1, result.hits().size());
+    }
+
+    @Test
+    public void pageSkipsBetterMatches() {
+        assertEquals(List.of("java"), titles(this.cut.search(List.of("jvm"), 1, 10)));
+    }
+
+    @Test
+    public void removedDocumentIsNotFound() {
+        this.cut.remove(Path.of("jvm.json"));
+        assertEquals(List.of("java"), titles(this.cut.search(List.of("jvm"), 0, 10)));
+    }
+
+    @Test
+    public void replacedDocumentIsFoundOnce() {
+        this.put("go", Map.of("go", 1, "java", 1), 10);
+        assertEquals(3, this.cut.search(List.of("java"), 0, 10).total());
+        assertEquals(3, this.cut.size());
+    }
+
+    @Test
+    public void replacementsAreCompacted() {
+        for (int i = 0; i < 3000; i++) {
+            this.put("go", Map.of("go", 1 + i % 3), 10);
+        }
+        assertTrue(this.cut.slots() < 3000, "slots: " + this.cut.slots());
+        assertEquals(List.of("go"), titles(this.cut.search(List.of("go"), 0, 10)));
+        assertEquals(List.of("jvm", "java"), titles(this.cut.search(List.of("jvm"), 0, 10)));
+    }
+
+    private void put(String title, Map<String, Integer> frequencies, int length) {
+        this.cut.put(new InvertedIndex.Document(Path.of(title + ".json"), FileTime.fromMillis(0), "2023-1-1",
+                title, null, length), frequencies);
+    }
+
+    private static List<String> titles(SearchResult result) {
+        return result.hits().stream().map(SearchHit::title).toList();
+    }
+}
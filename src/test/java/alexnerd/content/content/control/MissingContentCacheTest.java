@@ -0,0 +1,107 @@
+/*
+ * Copyright 2023 Aleksey Popov <alexnerd.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package alexnerd.content.content.control;
+
+import alexnerd.content.metrics.ContentMetrics;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static alexnerd.content.content.control.ContentCacheTest.path;
+import static alexnerd.content.content.control.ContentStoreTest.inject;
+import static alexnerd.content.content.control.ContentStoreTest.noop;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MissingContentCacheTest {
+
+    private MissingContentCache cut;
+
+    @BeforeEach
+    public void init() {
+        this.cut = create(3, 60);
+    }
+
+    @Test
+    public void markedPathIsMissingUntilItExpires() {
+        this.cut.markMissing(path("a"));
+        assertTrue(this.cut.isMissing(path("a")));
+        assertFalse(this.cut.isMissing(path("b")));
+
+        MissingContentCache expiring = create(3, 0);
+        expiring.markMissing(path("a"));
+        assertFalse(expiring.isMissing(path("a")));
+        assertEquals(0, expiring.size());
+    }
+
+    @Test
+    public void oldestPathIsDroppedAboveTheSize() {
+        for (String name : new String[]{"a", "b", "c", "d"}) {
+            this.cut.markMissing(path(name));
+        }
+
+        assertEquals(3, this.cut.size());
+        assertFalse(this.cut.isMissing(path("a")));
+        assertTrue(this.cut.isMissing(path("d")));
+    }
+
+    @Test
+    public void remarkedPathBecomesTheNewest() {
+        this.cut.markMissing(path("a"));
+        this.cut.markMissing(path("b"));
+        this.cut.markMissing(path("c"));
+        this.cut.markMissing(path("a"));
+        this.cut.markMissing(path("d"));
+
+        assertTrue(this.cut.isMissing(path("a")));
+        assertFalse(this.cut.isMissing(path("b")));
+    }
+
+    @Test
+    public void createdFileIsNoLongerMissing() {
+        this.cut.markMissing(path("a"));
+        this.cut.markMissing(path("b"));
+
+        this.cut.onChange(new ContentChange(path("a")));
+
+        assertFalse(this.cut.isMissing(path("a")));
+        assertTrue(this.cut.isMissing(path("b")));
+    }
+
+    @Test
+    public void directoryChangeForgetsEverythingBelow() {
+        this.cut.markMissing(path("a"));
+        this.cut.markMissing(path("b"));
+
+        this.cut.onChange(new ContentChange(path("a").getParent()));
+
+        assertEquals(0, this.cut.size());
+    }
+
+    MissingContentCache create(int maxEntries, long ttlInSeconds) {
+        ContentMetrics contentMetrics = new ContentMetrics();
+        inject(contentMetrics, "registry", noop(MetricRegistry.class));
+        MissingContentCache cache = new MissingContentCache();
+        cache.maxEntries = maxEntries;
+        cache.ttlInSeconds = ttlInSeconds;
+        inject(cache, "contentMetrics", contentMetrics);
+        cache.init();
+        return cache;
+    }
+}
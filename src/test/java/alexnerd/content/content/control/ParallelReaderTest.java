@@ -0,0 +1,109 @@
+/*
+ * Copyright 2023 Aleksey Popov <alexnerd.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package alexnerd.content.content.control;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ParallelReaderTest {
+    private ParallelReader cut;
+
+    @BeforeEach
+    public void init() {
+        this.cut = new ParallelReader();
+        this.cut.parallelism = 2;
+        this.cut.init();
+    }
+
+    @AfterEach
+    public void close() {
+        this.cut.close();
+    }
+
+    @Test
+    public void keepsInputOrder() {
+        List<Integer> actual = this.cut.map(List.of(50, 10, 30, 0), delay -> {
+            sleep(delay);
+            return delay;
+        });
+        assertEquals(List.of(50, 10, 30, 0), actual);
+    }
+
+    @Test
+    public void firstFailureFailsBatch() {
+        AtomicInteger completed = new AtomicInteger();
+        UncheckedIOException thrown = assertThrows(UncheckedIOException.class, () -> this.cut.map(List.of(0, 1, 2, 3, 4, 5), i -> {
+            if (i == 0) {
+                throw new UncheckedIOException(new IOException("missing"));
+            }
+            sleep(200);
+            return completed.incrementAndGet();
+        }));
+        assertEquals("missing", thrown.getCause().getMessage());
+        assertTrue(completed.get() < 5);
+    }
+
+    @Test
+    public void ownPermitsLeaveRequestReadsFree() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<List<Integer>> background = CompletableFuture.supplyAsync(() ->
+                this.cut.map(List.of(1, 2, 3), i -> {
+                    await(release);
+                    return i;
+                }, new Semaphore(2)));
+        try {
+            List<Integer> actual = CompletableFuture.supplyAsync(() -> this.cut.map(List.of(4, 5), i -> i))
+                    .get(5, TimeUnit.SECONDS);
+            assertEquals(List.of(4, 5), actual);
+            assertFalse(background.isDone());
+        } finally {
+            release.countDown();
+        }
+        assertEquals(List.of(1, 2, 3), background.get(5, TimeUnit.SECONDS));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2023 Aleksey Popov <alexnerd.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package alexnerd.content.content.control;
+
+import alexnerd.content.content.control.enums.Lang;
+import alexnerd.content.content.entity.enums.ContentType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SegmentBackendTest {
+    @TempDir
+    Path source;
+
+    @TempDir
+    Path target;
+
+    private SegmentBackend cut;
+
+    @BeforeEach
+    public void init() throws IOException {
+        createPost("2023/2/1", "february", "{\"title\":\"февраль\"}");
+        createPost("2023/10/1", "october", "{\"title\":\"october\"}");
+        SegmentPacker.pack(source, target);
+        this.cut = new SegmentBackend();
+        this.cut.baseDir = target.toString();
+        this.cut.init();
+    }
+
+    @AfterEach
+    public void stop() {
+        this.cut.stop();
+    }
+
+    @Test
+    public void readsPackedContent() throws IOException {
+        Path path = contentPath("2023/2/1", "february");
+        assertArrayEquals(Files.readAllBytes(source.resolve(target.relativize(path))), this.cut.readBytes(path));
+        assertEquals(Files.size(source.resolve(target.relativize(path))), this.cut.getAttributes(path).size());
+        try (InputStream in = this.cut.open(path)) {
+            assertEquals("{\"title\":\"февраль\"}", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+        this.cut.stream(contentPath("2023/10/1", "october")).write(streamed);
+        assertEquals("{\"title\":\"october\"}", streamed.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void unknownContentIsNotFound() {
+        assertThrows(FileNotFoundException.class, () -> this.cut.getAttributes(contentPath("2023/2/1", "unknown")));
+        assertThrows(FileNotFoundException.class, () -> this.cut.getAttributes(target.resolve("unknown.json")));
+    }
+
+    @Test
+    public void repackAppendsChangedFilesOnly() throws IOException {
+        createPost("2023/2/1", "february", "{\"title\":\"february, corrected\"}");
+        Files.setLastModifiedTime(source.resolve("RU/posts/2023/2/1/february.json"), FileTime.fromMillis(0));
+        Files.delete(source.resolve("RU/posts/2023/10/1/october.json"));
+        createPost("2023/10/2", "news", "{}");
+        List<SegmentPacker.Packed> packed = SegmentPacker.pack(source, target);
+        assertEquals(List.of(new SegmentPacker.Packed("RU-posts", 0, 2, 1)), packed);
+
+        List<String> listed = this.cut.list(target.resolve("RU/posts")).stream()
+                .map(entry -> entry.date() + "/" + entry.path().getFileName())
+                .sorted()
+                .toList();
+        assertEquals(List.of("2023-10-2/news.json", "2023-2-1/february.json"), listed);
+        assertEquals("{\"title\":\"february, corrected\"}",
+                new String(this.cut.readBytes(contentPath("2023/2/1", "february")), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void unchangedFilesAreKept() throws IOException {
+        long size = Files.size(SegmentFiles.segmentFile(target, "RU", "posts", 0));
+        assertEquals(List.of(new SegmentPacker.Packed("RU-posts", 2, 0, 0)), SegmentPacker.pack(source, target));
+        assertEquals(size, Files.size(SegmentFiles.segmentFile(target, "RU", "posts", 0)));
+    }
+
+    @Test
+    public void emptyDirectoryCreatesNoSegment() throws IOException {
+        Files.createDirectories(source.resolve(Lang.RU.name()).resolve(ContentType.ARTICLE.getBaseDir()));
+        SegmentPacker.pack(source, target);
+        assertTrue(Files.exists(SegmentFiles.indexFile(target, "RU", "articles")));
+        assertFalse(Files.exists(SegmentFiles.segmentFile(target, "RU", "articles", 0)));
+    }
+
+    private Path contentPath(String date, String name) {
+        return target.resolve(Lang.RU.name()).resolve(ContentType.POST.getBaseDir()).resolve(date).resolve(name + ".json");
+    }
+
+    private void createPost(String date, String name, String json) throws IOException {
+        Path directory = source.resolve(Lang.RU.name()).resolve(ContentType.POST.getBaseDir()).resolve(date);
+        Files.createDirectories(directory);
+        Files.writeString(directory.resolve(name + ".json"), json);
+    }
+}
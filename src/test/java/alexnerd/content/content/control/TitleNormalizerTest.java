@@ -20,6 +20,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 public class TitleNormalizerTest {
     private TitleNormalizer cut;
@@ -28,6 +29,7 @@ public class TitleNormalizerTest {
     public void init() {
         this.cut = new TitleNormalizer();
         this.cut.titleSeparator = "-";
+        this.cut.memoSize = 16;
         this.cut.init();
     }
 
@@ -44,4 +46,41 @@ public class TitleNormalizerTest {
         String actual = this.cut.normalize(invalid);
         assertEquals(expected, actual);
     }
+
+    @Test
+    public void validTitleIsReturnedAsIs() {
+        String valid = "ПриветМир2023";
+        assertSame(valid, this.cut.normalize(valid));
+    }
+
+    @Test
+    public void supplementaryLetterIsKept() {
+        String valid = "\uD835\uDD18nicode";
+        assertSame(valid, this.cut.normalize(valid));
+    }
+
+    @Test
+    public void surrogatePairIsReplacedByOneSeparator() {
+        assertEquals("hello-world", this.cut.normalize("hello\uD83D\uDE00world"));
+    }
+
+    @Test
+    public void loneSurrogateIsReplaced() {
+        assertEquals("hello-world", this.cut.normalize("hello\uD83Dworld"));
+    }
+
+    @Test
+    public void supplementarySeparator() {
+        this.cut.titleSeparator = "\uD83D\uDE00";
+        this.cut.init();
+        assertEquals("hello\uD83D\uDE00\uD835\uDD18", this.cut.normalize("hello \uD835\uDD18"));
+    }
+
+    @Test
+    public void rememberedTitleIsNormalizedTheSame() {
+        String first = this.cut.normalize("hello world!");
+        String second = this.cut.normalize(new String("hello world!"));
+        assertEquals("hello-world-", first);
+        assertSame(first, second);
+    }
 }
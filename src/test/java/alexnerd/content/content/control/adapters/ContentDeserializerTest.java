@@ -0,0 +1,81 @@
+/*
+ * Copyright 2023 Aleksey Popov <alexnerd.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package alexnerd.content.content.control.adapters;
+
+import alexnerd.content.content.entity.Content;
+import alexnerd.content.content.entity.enums.ContentType;
+import jakarta.json.stream.JsonParsingException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ContentDeserializerTest {
+
+    private static final Content TEASER = new Content("Title", ContentType.LAST_ARTICLES, null, null,
+            "2023-05-01", "title");
+
+    @Test
+    public void fieldsAreReadInAnyOrder() {
+        assertEquals(TEASER, teaser("""
+                {"link": "title", "createDate": "2023-05-01", "title": "Title"}"""));
+    }
+
+    @Test
+    public void nestedValuesAroundTheFieldsAreSkipped() {
+        assertEquals(TEASER, teaser("""
+                {"meta": {"title": "Nested", "tags": ["a", {"link": "x"}]},
+                 "title": "Title", "rubrics": [["createDate"], {"createDate": "1999-01-01"}],
+                 "createDate": "2023-05-01", "content": "body", "link": "title",
+                 "after": {"title": [1, 2, {"link": null}]}}"""));
+    }
+
+    @Test
+    public void missingFieldIsNull() {
+        Content content = teaser("""
+                {"title": "Title", "content": "body", "link": "title"}""");
+
+        assertEquals("Title", content.title());
+        assertNull(content.createDate());
+        assertEquals("title", content.link());
+    }
+
+    @Test
+    public void nonObjectRootIsRejected() {
+        assertThrows(JsonParsingException.class, () -> teaser("""
+                [{"title": "Title"}]"""));
+    }
+
+    @Test
+    public void streamedTeaserMatchesBoundOne() {
+        Content article = JsonMapper.load("""
+                {"title": "Title", "type": "ARTICLE", "content": "body", "rubric": "java",
+                 "createDate": "2023-05-01", "link": "title"}""");
+
+        assertArrayEquals(ContentDeserializer.teaserJson(article),
+                ContentDeserializer.teaserJson(teaser(JsonMapper.save(article))));
+    }
+
+    private static Content teaser(String json) {
+        return ContentDeserializer.teaser(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2023 Aleksey Popov <alexnerd.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package alexnerd.content.content.control.adapters;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TextAnalyzerTest {
+
+    @Test
+    public void inflectionsShareStem() {
+        assertEquals(TextAnalyzer.terms("программа"), TextAnalyzer.terms("программами"));
+        assertEquals(TextAnalyzer.terms("программы"), TextAnalyzer.terms("Программой"));
+    }
+
+    @Test
+    public void yoIsFolded() {
+        assertEquals(TextAnalyzer.terms("ежик"), TextAnalyzer.terms("Ёжик"));
+    }
+
+    @Test
+    public void stopWordsAndMarkupAreDropped() {
+        assertEquals(List.of("java", "памят"), TextAnalyzer.terms("<p class=\"note\">и Java, и <b>память</b></p>"));
+    }
+
+    @Test
+    public void lessThanOutsideTagsIsText() {
+        assertEquals(List.of("b", "c", "d"), TextAnalyzer.terms("a < b, c > d"));
+        assertEquals(List.of("list", "string", "size"), TextAnalyzer.terms("List<String> size"));
+        assertEquals(List.of("x", "1", "y"), TextAnalyzer.terms("x <1 y"));
+    }
+
+    @Test
+    public void commentsAndUnclosedTagsAtTheEnd() {
+        assertEquals(List.of("java", "jvm"), TextAnalyzer.terms("java<!-- note -->jvm"));
+        assertEquals(List.of("java", "b"), TextAnalyzer.terms("java <b"));
+    }
+
+    @Test
+    public void shortWordsAreNotStemmed() {
+        assertEquals(List.of("код"), TextAnalyzer.terms("код"));
+    }
+}
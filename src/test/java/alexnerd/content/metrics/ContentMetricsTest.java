@@ -0,0 +1,179 @@
+/*
+ * Copyright 2023 Aleksey Popov <alexnerd.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package alexnerd.content.metrics;
+
+import alexnerd.content.content.entity.enums.ContentType;
+import alexnerd.content.metrics.ContentMetrics.CacheResult;
+import alexnerd.content.metrics.ContentMetrics.Stage;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.Snapshot;
+import org.eclipse.microprofile.metrics.Tag;
+import org.eclipse.microprofile.metrics.Timer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ContentMetricsTest {
+
+    private final Map<String, List<Long>> timers = new HashMap<>();
+
+    private final Map<String, Supplier<?>> gauges = new HashMap<>();
+
+    private ContentMetrics cut;
+
+    @BeforeEach
+    public void init() {
+        this.cut = new ContentMetrics();
+        inject(this.cut, "registry", this.registry());
+        inject(this.cut, "stagePercentiles", List.of(0.5, 0.99));
+    }
+
+    @Test
+    public void timerPerStageTypeAndCacheResult() {
+        this.cut.updateStage(Stage.READ, ContentType.POST, CacheResult.MISS, 10);
+        this.cut.updateStage(Stage.READ, ContentType.POST, CacheResult.MISS, 20);
+        this.cut.updateStage(Stage.READ, ContentType.POST, CacheResult.HIT, 30);
+        this.cut.updateStage(Stage.READ, ContentType.ARTICLE, CacheResult.MISS, 40);
+        this.cut.updateStage(Stage.DESERIALIZE, ContentType.POST, CacheResult.MISS, 50);
+
+        assertEquals(Map.of(
+                "content_stage{cache=miss, stage=read, type=POST}", List.of(10L, 20L),
+                "content_stage{cache=hit, stage=read, type=POST}", List.of(30L),
+                "content_stage{cache=miss, stage=read, type=ARTICLE}", List.of(40L),
+                "content_stage{cache=miss, stage=deserialize, type=POST}", List.of(50L)), this.timers);
+    }
+
+    @Test
+    public void percentileGaugesReadTheTimerInMilliseconds() {
+        for (long millis : new long[]{10, 20, 30, 40}) {
+            this.cut.updateStage(Stage.SERIALIZE, ContentType.LAST_ARTICLES, CacheResult.MISS,
+                    Duration.ofMillis(millis).toNanos());
+        }
+
+        assertEquals(2, this.gauges.size());
+        assertEquals(20.0, this.gauges.get("content_stage_percentile{cache=miss, quantile=0.5, stage=serialize, type=LAST_ARTICLES}").get());
+        assertEquals(40.0, this.gauges.get("content_stage_percentile{cache=miss, quantile=0.99, stage=serialize, type=LAST_ARTICLES}").get());
+
+        this.cut.updateStage(Stage.SERIALIZE, ContentType.LAST_ARTICLES, CacheResult.MISS, Duration.ofMillis(100).toNanos());
+        assertEquals(100.0, this.gauges.get("content_stage_percentile{cache=miss, quantile=0.99, stage=serialize, type=LAST_ARTICLES}").get());
+    }
+
+    private MetricRegistry registry() {
+        return (MetricRegistry) Proxy.newProxyInstance(MetricRegistry.class.getClassLoader(), new Class<?>[]{MetricRegistry.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "timer" -> {
+                        List<Long> updates = this.timers.computeIfAbsent(id((String) args[0], (Tag[]) args[1]), k -> new ArrayList<>());
+                        yield timer(updates);
+                    }
+                    case "gauge" -> {
+                        this.gauges.put(id((String) args[0], (Tag[]) args[2]), (Supplier<?>) args[1]);
+                        yield null;
+                    }
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static Timer timer(List<Long> updates) {
+        return (Timer) Proxy.newProxyInstance(Timer.class.getClassLoader(), new Class<?>[]{Timer.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "update" -> {
+                        updates.add(((Duration) args[0]).toNanos());
+                        yield null;
+                    }
+                    case "getSnapshot" -> snapshot(updates.stream().mapToLong(Long::longValue).sorted().toArray());
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    /**
+     * Nearest rank quantiles of the recorded values.
+     */
+    private static Snapshot snapshot(long[] values) {
+        return new Snapshot() {
+            @Override
+            public double getValue(double quantile) {
+                return values[Math.max(0, (int) Math.ceil(quantile * values.length) - 1)];
+            }
+
+            @Override
+            public long[] getValues() {
+                return values;
+            }
+
+            @Override
+            public int size() {
+                return values.length;
+            }
+
+            @Override
+            public long getMax() {
+                return values[values.length - 1];
+            }
+
+            @Override
+            public double getMean() {
+                return Arrays.stream(values).average().orElse(0);
+            }
+
+            @Override
+            public long getMin() {
+                return values[0];
+            }
+
+            @Override
+            public double getStdDev() {
+                return 0;
+            }
+
+            @Override
+            public void dump(OutputStream output) {
+            }
+        };
+    }
+
+    private static String id(String name, Tag[] tags) {
+        Map<String, String> sorted = new TreeMap<>();
+        for (Tag tag : tags) {
+            sorted.put(tag.getTagName(), tag.getTagValue());
+        }
+        return name + sorted;
+    }
+
+    private static void inject(Object target, String name, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException("Can't inject " + name + " into " + target.getClass(), ex);
+        }
+    }
+}
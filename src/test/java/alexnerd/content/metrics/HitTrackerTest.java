@@ -0,0 +1,102 @@
+/*
+ * Copyright 2023 Aleksey Popov <alexnerd.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package alexnerd.content.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HitTrackerTest {
+
+    @Test
+    public void rejectsCapacityBelowOne() {
+        assertThrows(IllegalArgumentException.class, () -> new HitTracker(0));
+    }
+
+    @Test
+    public void exactWhileUnderCapacity() {
+        HitTracker cut = new HitTracker(4);
+        cut.hit("a");
+        cut.hit("b");
+        cut.hit("a");
+        assertEquals(2, cut.count("a"));
+        assertEquals(List.of("a", "b"), cut.top(10).stream().map(HitTracker.Hit::key).toList());
+    }
+
+    @Test
+    public void heavyHittersSurviveManyDistinctKeys() {
+        HitTracker cut = new HitTracker(8);
+        for (int i = 0; i < 10_000; i++) {
+            cut.hit("popular");
+            cut.hit("random-" + i);
+            if (i % 2 == 0) {
+                cut.hit("second");
+            }
+        }
+        List<HitTracker.Hit> top = cut.top(2);
+        assertEquals("popular", top.get(0).key());
+        assertEquals("second", top.get(1).key());
+        assertTrue(cut.top(100).size() <= 8);
+        assertTrue(top.get(0).count() - top.get(0).error() <= 10_000);
+    }
+
+    @Test
+    public void seededCountsRankLikeHits() {
+        HitTracker cut = new HitTracker(4);
+        cut.add("restored", 5);
+        cut.hit("fresh");
+        cut.hit("restored");
+        assertEquals(6, cut.count("restored"));
+        assertEquals(List.of("restored", "fresh"), cut.top(10).stream().map(HitTracker.Hit::key).toList());
+    }
+
+    @Test
+    public void unmonitoredKeyReplacesMinimum() {
+        HitTracker cut = new HitTracker(2);
+        cut.hit("a");
+        cut.hit("a");
+        cut.hit("b");
+        cut.hit("c");
+        assertEquals(List.of(new HitTracker.Hit("a", 2, 0), new HitTracker.Hit("c", 2, 1)), cut.top(10));
+        assertEquals(0, cut.count("b"));
+    }
+
+    @Test
+    public void countsMatchExactCountsUnderCapacity() {
+        HitTracker cut = new HitTracker(64);
+        Map<String, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 10_000; i++) {
+            String key = "key-" + random.nextInt(64);
+            long count = random.nextInt(10) == 0 ? 1 + random.nextInt(5) : 1;
+            cut.add(key, count);
+            expected.merge(key, count, Long::sum);
+        }
+        expected.forEach((key, count) -> assertEquals(count, cut.count(key)));
+        List<HitTracker.Hit> top = cut.top(64);
+        for (int i = 1; i < top.size(); i++) {
+            assertTrue(top.get(i - 1).count() >= top.get(i).count());
+        }
+    }
+}